@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.codec;
+
+/**
+ * Constants shared by {@link PortfolioBinaryWriter} and {@link PortfolioBinaryReader}.
+ */
+final class PortfolioBinaryFormat {
+
+    static final int MAGIC = 0x42525650;
+
+    /**
+     * Must be incremented with every incompatible change of the encoding,
+     * including a reordering of the constants of the encoded enums.
+     */
+    static final int VERSION = 1;
+
+    static final int PORTFOLIO_PERIOD_RECORD = 1;
+
+    static final int TRANSACTION_RECORD = 2;
+
+    static final int PORTFOLIO_BREAKDOWN_RECORD = 3;
+
+    static final int HOLDING_RECORD = 4;
+
+    static final int PORTFOLIO_VALUE_RECORD = 5;
+
+    static final int NULL_STRING = 0;
+
+    static final int NEW_STRING = 1;
+
+    static final int FIRST_STRING_REF = 2;
+
+    static final int BUFFER_SIZE = 8192;
+
+    private PortfolioBinaryFormat() {
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.codec;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Holding;
+import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.BUFFER_SIZE;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.FIRST_STRING_REF;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.HOLDING_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.MAGIC;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.NEW_STRING;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.NULL_STRING;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.PORTFOLIO_BREAKDOWN_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.PORTFOLIO_PERIOD_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.PORTFOLIO_VALUE_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.TRANSACTION_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.VERSION;
+
+/**
+ * Reads the records written by {@link PortfolioBinaryWriter}.
+ * Every read method returns null at the end of the stream and fails with {@link StreamCorruptedException}
+ * if the next record is of another type or the data is invalid.
+ * Breakdown snapshots are decoded into a {@link TreeMap} as produced by the consolidation
+ * and cash balances into an {@link EnumMap}, both free to be modified by the caller.
+ * <p>
+ * Not thread-safe.
+ */
+public class PortfolioBinaryReader implements Closeable {
+
+    private static class LazyHolder {
+
+        private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+        private static final TransactionSide[] TRANSACTION_SIDES = TransactionSide.values();
+
+        private static final Currency[] CURRENCIES = Currency.values();
+    }
+
+    private final InputStream in;
+
+    private final byte[] buf = new byte[BUFFER_SIZE];
+
+    private int pos;
+
+    private int limit;
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private final Map<String, ZoneId> zones = new HashMap<>();
+
+    private long lastEpochSecond;
+
+    /**
+     * @throws StreamCorruptedException if the stream was not written by a compatible {@link PortfolioBinaryWriter}
+     */
+    public PortfolioBinaryReader(InputStream in) throws IOException {
+        this.in = in;
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = (magic << 8) | readByte();
+        }
+        if (magic != MAGIC) {
+            throw new StreamCorruptedException(String.format("Unexpected magic number: %08X", magic));
+        }
+        int version = readVarInt();
+        if (version != VERSION) {
+            throw new StreamCorruptedException(String.format("Unsupported format version: %s, expected: %s", version, VERSION));
+        }
+    }
+
+    public PortfolioPeriod readPortfolioPeriod() throws IOException {
+        if (!readRecordType(PORTFOLIO_PERIOD_RECORD)) {
+            return null;
+        }
+        PortfolioPeriod portfolioPeriod = new PortfolioPeriod();
+        portfolioPeriod.setAccountNumber(readString());
+        portfolioPeriod.setAccountName(readString());
+        portfolioPeriod.setPeriodFrom(readLocalDate());
+        portfolioPeriod.setPeriodTo(readLocalDate());
+        int breakdownsSize = readSize();
+        if (breakdownsSize >= 0) {
+            Map<LocalDate, PortfolioBreakdown> breakdowns = new TreeMap<>();
+            for (int i = 0; i < breakdownsSize; i++) {
+                LocalDate date = requireMapKey(readLocalDate());
+                breakdowns.put(date, readPresence() ? readPortfolioBreakdownFields() : null);
+            }
+            portfolioPeriod.setPortfolioBreakdownSnapshots(breakdowns);
+        }
+        int transactionsSize = readSize();
+        if (transactionsSize >= 0) {
+            List<Transaction> transactions = new ArrayList<>(initialCapacity(transactionsSize));
+            for (int i = 0; i < transactionsSize; i++) {
+                transactions.add(readPresence() ? readTransactionFields() : null);
+            }
+            portfolioPeriod.setTransactions(transactions);
+        }
+        return portfolioPeriod;
+    }
+
+    public Transaction readTransaction() throws IOException {
+        return readRecordType(TRANSACTION_RECORD) ? readTransactionFields() : null;
+    }
+
+    public PortfolioBreakdown readPortfolioBreakdown() throws IOException {
+        return readRecordType(PORTFOLIO_BREAKDOWN_RECORD) ? readPortfolioBreakdownFields() : null;
+    }
+
+    public Holding readHolding() throws IOException {
+        return readRecordType(HOLDING_RECORD) ? readHoldingFields() : null;
+    }
+
+    public PortfolioValue readPortfolioValue() throws IOException {
+        if (!readRecordType(PORTFOLIO_VALUE_RECORD)) {
+            return null;
+        }
+        PortfolioValue portfolioValue = new PortfolioValue();
+        portfolioValue.setAccountNumber(readString());
+        portfolioValue.setAccountName(readString());
+        portfolioValue.setDay(readLocalDate());
+        portfolioValue.setCashValue(readDecimal());
+        portfolioValue.setStocksValue(readDecimal());
+        portfolioValue.setTotalValue(readDecimal());
+        portfolioValue.setCurrency(readEnum(LazyHolder.CURRENCIES));
+        return portfolioValue;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Transaction readTransactionFields() throws IOException {
+        Transaction transaction = new Transaction();
+        transaction.setDate(readZonedDateTime());
+        transaction.setType(readEnum(LazyHolder.TRANSACTION_TYPES));
+        transaction.setSymbol(readString());
+        transaction.setCountry(readString());
+        transaction.setQuantity(readDecimal());
+        transaction.setPrice(readDecimal());
+        transaction.setValue(readDecimal());
+        transaction.setGrossAmount(readDecimal());
+        transaction.setWithholdingTax(readDecimal());
+        transaction.setSide(readEnum(LazyHolder.TRANSACTION_SIDES));
+        transaction.setFees(readDecimal());
+        transaction.setCommission(readDecimal());
+        transaction.setSecurityName(readString());
+        transaction.setIsin(readString());
+        transaction.setCurrency(readEnum(LazyHolder.CURRENCIES));
+        return transaction;
+    }
+
+    private PortfolioBreakdown readPortfolioBreakdownFields() throws IOException {
+        PortfolioBreakdown portfolioBreakdown = new PortfolioBreakdown();
+        portfolioBreakdown.setDate(readLocalDate());
+        int cashSize = readSize();
+        if (cashSize >= 0) {
+            Map<Currency, BigDecimal> cash = new EnumMap<>(Currency.class);
+            for (int i = 0; i < cashSize; i++) {
+                Currency currency = requireMapKey(readEnum(LazyHolder.CURRENCIES));
+                cash.put(currency, readPresence() ? readDecimal() : null);
+            }
+            portfolioBreakdown.setCash(cash);
+        }
+        int holdingsSize = readSize();
+        if (holdingsSize >= 0) {
+            List<Holding> holdings = new ArrayList<>(initialCapacity(holdingsSize));
+            for (int i = 0; i < holdingsSize; i++) {
+                holdings.add(readPresence() ? readHoldingFields() : null);
+            }
+            portfolioBreakdown.setHoldings(holdings);
+        }
+        return portfolioBreakdown;
+    }
+
+    private Holding readHoldingFields() throws IOException {
+        Holding holding = new Holding();
+        holding.setSymbol(readString());
+        holding.setCompany(readString());
+        holding.setIsin(readString());
+        holding.setQuantity(readDecimal());
+        holding.setPrice(readDecimal());
+        holding.setValue(readDecimal());
+        holding.setCurrency(readEnum(LazyHolder.CURRENCIES));
+        return holding;
+    }
+
+    /**
+     * @return false at the end of the stream
+     */
+    private boolean readRecordType(int expectedRecordType) throws IOException {
+        if (pos == limit && !fill()) {
+            return false;
+        }
+        int recordType = readVarInt();
+        if (recordType != expectedRecordType) {
+            throw new StreamCorruptedException(String.format(
+                    "Unexpected record type: %s, expected: %s", recordType, expectedRecordType));
+        }
+        return true;
+    }
+
+    /**
+     * @return collection size or -1 for null
+     */
+    private int readSize() throws IOException {
+        return readVarInt() - 1;
+    }
+
+    /**
+     * A corrupt size must not allocate more than the data actually read.
+     */
+    private static int initialCapacity(int size) {
+        return Math.min(size, BUFFER_SIZE);
+    }
+
+    private static <K> K requireMapKey(K key) throws StreamCorruptedException {
+        if (key == null) {
+            throw new StreamCorruptedException("Unexpected null map key");
+        }
+        return key;
+    }
+
+    private boolean readPresence() throws IOException {
+        return readByte() != 0;
+    }
+
+    private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = readVarInt() - 1;
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= values.length) {
+            throw new StreamCorruptedException(String.format(
+                    "Unexpected ordinal of %s: %s", values.getClass().getComponentType().getSimpleName(), ordinal));
+        }
+        return values[ordinal];
+    }
+
+    private String readString() throws IOException {
+        int ref = readVarInt();
+        switch (ref) {
+            case NULL_STRING: {
+                return null;
+            }
+            case NEW_STRING: {
+                int length = readVarInt();
+                String value;
+                if (length <= limit - pos) {
+                    value = new String(buf, pos, length, StandardCharsets.UTF_8);
+                    pos += length;
+                } else {
+                    value = new String(readBytes(length), StandardCharsets.UTF_8);
+                }
+                dictionary.add(value);
+                return value;
+            }
+            default: {
+                int id = ref - FIRST_STRING_REF;
+                if (id >= dictionary.size()) {
+                    throw new StreamCorruptedException(String.format("Unexpected string reference: %s", id));
+                }
+                return dictionary.get(id);
+            }
+        }
+    }
+
+    private LocalDate readLocalDate() throws IOException {
+        long value = readVarLong();
+        return value == 0 ? null : LocalDate.ofEpochDay(unZigZag(value - 1));
+    }
+
+    private ZonedDateTime readZonedDateTime() throws IOException {
+        long value = readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        long epochSecond = lastEpochSecond + unZigZag(value - 1);
+        lastEpochSecond = epochSecond;
+        int nano = readVarInt();
+        String zoneId = readString();
+        ZoneId zone = zones.computeIfAbsent(zoneId, ZoneId::of);
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), zone);
+    }
+
+    private BigDecimal readDecimal() throws IOException {
+        long header = readVarLong();
+        if (header == 0) {
+            return null;
+        }
+        header--;
+        int scale = (int) unZigZag(header >>> 1);
+        if ((header & 1) == 0) {
+            return BigDecimal.valueOf(unZigZag(readVarLong()), scale);
+        } else {
+            return new BigDecimal(new BigInteger(readBytes(readVarInt())), scale);
+        }
+    }
+
+    /**
+     * The array grows with the data read, so a corrupt length fails with {@link EOFException}
+     * instead of allocating up to 2 GB upfront.
+     */
+    private byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[Math.min(length, BUFFER_SIZE)];
+        int offset = 0;
+        while (offset < length) {
+            if (pos == limit && !fill()) {
+                throw new EOFException();
+            }
+            if (offset == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int n = Math.min(bytes.length - offset, limit - pos);
+            System.arraycopy(buf, pos, bytes, offset, n);
+            pos += n;
+            offset += n;
+        }
+        return bytes;
+    }
+
+    private int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException(String.format("Varint out of int range: %s", value));
+        }
+        return (int) value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private int readByte() throws IOException {
+        if (pos == limit && !fill()) {
+            throw new EOFException();
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, BUFFER_SIZE);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
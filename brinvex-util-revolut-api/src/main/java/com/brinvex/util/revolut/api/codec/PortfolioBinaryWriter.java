@@ -0,0 +1,326 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.codec;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Holding;
+import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.Transaction;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.BUFFER_SIZE;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.FIRST_STRING_REF;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.HOLDING_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.MAGIC;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.NEW_STRING;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.NULL_STRING;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.PORTFOLIO_BREAKDOWN_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.PORTFOLIO_PERIOD_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.PORTFOLIO_VALUE_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.TRANSACTION_RECORD;
+import static com.brinvex.util.revolut.api.codec.PortfolioBinaryFormat.VERSION;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes the portfolio model as a compact, versioned binary stream readable by {@link PortfolioBinaryReader}.
+ * <p>
+ * The stream starts with a magic number and the format version followed by any sequence of records.
+ * Integers are unsigned or zig-zag varints, decimals are a varint scale followed by a varint unscaled value,
+ * dates are epoch days and timestamps are epoch second deltas to the previous timestamp.
+ * Every string is written only once per stream and referenced by its dictionary id afterwards,
+ * so repeated symbols, ISINs and names cost one or two bytes.
+ * <p>
+ * Not thread-safe. The stream is buffered, so {@link #flush()} or {@link #close()} must be called.
+ */
+public class PortfolioBinaryWriter implements Closeable, Flushable {
+
+    private final OutputStream out;
+
+    private final byte[] buf = new byte[BUFFER_SIZE];
+
+    private int pos;
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private long lastEpochSecond;
+
+    public PortfolioBinaryWriter(OutputStream out) {
+        this.out = out;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (MAGIC >>> shift);
+        }
+        buf[pos++] = (byte) VERSION;
+    }
+
+    public void writePortfolioPeriod(PortfolioPeriod portfolioPeriod) throws IOException {
+        requireNonNull(portfolioPeriod);
+        writeVarInt(PORTFOLIO_PERIOD_RECORD);
+        writeString(portfolioPeriod.getAccountNumber());
+        writeString(portfolioPeriod.getAccountName());
+        writeLocalDate(portfolioPeriod.getPeriodFrom());
+        writeLocalDate(portfolioPeriod.getPeriodTo());
+        Map<LocalDate, PortfolioBreakdown> breakdowns = portfolioPeriod.getPortfolioBreakdownSnapshots();
+        writeSize(breakdowns == null ? -1 : breakdowns.size());
+        if (breakdowns != null) {
+            for (Map.Entry<LocalDate, PortfolioBreakdown> e : breakdowns.entrySet()) {
+                writeLocalDate(e.getKey());
+                if (writePresence(e.getValue())) {
+                    writePortfolioBreakdownFields(e.getValue());
+                }
+            }
+        }
+        List<Transaction> transactions = portfolioPeriod.getTransactions();
+        writeSize(transactions == null ? -1 : transactions.size());
+        if (transactions != null) {
+            for (Transaction transaction : transactions) {
+                if (writePresence(transaction)) {
+                    writeTransactionFields(transaction);
+                }
+            }
+        }
+    }
+
+    public void writeTransaction(Transaction transaction) throws IOException {
+        requireNonNull(transaction);
+        writeVarInt(TRANSACTION_RECORD);
+        writeTransactionFields(transaction);
+    }
+
+    public void writePortfolioBreakdown(PortfolioBreakdown portfolioBreakdown) throws IOException {
+        requireNonNull(portfolioBreakdown);
+        writeVarInt(PORTFOLIO_BREAKDOWN_RECORD);
+        writePortfolioBreakdownFields(portfolioBreakdown);
+    }
+
+    public void writeHolding(Holding holding) throws IOException {
+        requireNonNull(holding);
+        writeVarInt(HOLDING_RECORD);
+        writeHoldingFields(holding);
+    }
+
+    public void writePortfolioValue(PortfolioValue portfolioValue) throws IOException {
+        requireNonNull(portfolioValue);
+        writeVarInt(PORTFOLIO_VALUE_RECORD);
+        writeString(portfolioValue.getAccountNumber());
+        writeString(portfolioValue.getAccountName());
+        writeLocalDate(portfolioValue.getDay());
+        writeDecimal(portfolioValue.getCashValue());
+        writeDecimal(portfolioValue.getStocksValue());
+        writeDecimal(portfolioValue.getTotalValue());
+        writeEnum(portfolioValue.getCurrency());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            flushBuffer();
+        }
+    }
+
+    private void writeTransactionFields(Transaction transaction) throws IOException {
+        writeZonedDateTime(transaction.getDate());
+        writeEnum(transaction.getType());
+        writeString(transaction.getSymbol());
+        writeString(transaction.getCountry());
+        writeDecimal(transaction.getQuantity());
+        writeDecimal(transaction.getPrice());
+        writeDecimal(transaction.getValue());
+        writeDecimal(transaction.getGrossAmount());
+        writeDecimal(transaction.getWithholdingTax());
+        writeEnum(transaction.getSide());
+        writeDecimal(transaction.getFees());
+        writeDecimal(transaction.getCommission());
+        writeString(transaction.getSecurityName());
+        writeString(transaction.getIsin());
+        writeEnum(transaction.getCurrency());
+    }
+
+    private void writePortfolioBreakdownFields(PortfolioBreakdown portfolioBreakdown) throws IOException {
+        writeLocalDate(portfolioBreakdown.getDate());
+        Map<Currency, BigDecimal> cash = portfolioBreakdown.getCash();
+        writeSize(cash == null ? -1 : cash.size());
+        if (cash != null) {
+            for (Map.Entry<Currency, BigDecimal> e : cash.entrySet()) {
+                writeEnum(e.getKey());
+                if (writePresence(e.getValue())) {
+                    writeDecimal(e.getValue());
+                }
+            }
+        }
+        List<Holding> holdings = portfolioBreakdown.getHoldings();
+        writeSize(holdings == null ? -1 : holdings.size());
+        if (holdings != null) {
+            for (Holding holding : holdings) {
+                if (writePresence(holding)) {
+                    writeHoldingFields(holding);
+                }
+            }
+        }
+    }
+
+    private void writeHoldingFields(Holding holding) throws IOException {
+        writeString(holding.getSymbol());
+        writeString(holding.getCompany());
+        writeString(holding.getIsin());
+        writeDecimal(holding.getQuantity());
+        writeDecimal(holding.getPrice());
+        writeDecimal(holding.getValue());
+        writeEnum(holding.getCurrency());
+    }
+
+    /**
+     * Collection size shifted by one, zero stands for null.
+     */
+    private void writeSize(int size) throws IOException {
+        writeVarInt(size + 1);
+    }
+
+    private boolean writePresence(Object value) throws IOException {
+        boolean present = value != null;
+        writeByte(present ? 1 : 0);
+        return present;
+    }
+
+    /**
+     * Ordinal shifted by one, zero stands for null.
+     */
+    private void writeEnum(Enum<?> value) throws IOException {
+        writeVarInt(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(NULL_STRING);
+            return;
+        }
+        Integer id = dictionary.get(value);
+        if (id != null) {
+            writeVarInt(FIRST_STRING_REF + id);
+            return;
+        }
+        dictionary.put(value, dictionary.size());
+        writeVarInt(NEW_STRING);
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Epoch day zig-zag encoded and shifted by one, zero stands for null.
+     */
+    private void writeLocalDate(LocalDate value) throws IOException {
+        writeVarLong(value == null ? 0 : zigZag(value.toEpochDay()) + 1);
+    }
+
+    /**
+     * Epoch second delta to the previous timestamp, nanos and the zone id.
+     */
+    private void writeZonedDateTime(ZonedDateTime value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        long epochSecond = value.toEpochSecond();
+        writeVarLong(zigZag(epochSecond - lastEpochSecond) + 1);
+        lastEpochSecond = epochSecond;
+        writeVarInt(value.getNano());
+        writeString(value.getZone().getId());
+    }
+
+    /**
+     * A header with the zig-zag encoded scale and a flag of the unscaled value representation, shifted by one,
+     * followed by the unscaled value as a zig-zag varint or, if it does not fit a long, as two's-complement bytes.
+     * Zero header stands for null.
+     */
+    private void writeDecimal(BigDecimal value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        BigInteger unscaledValue = value.unscaledValue();
+        boolean compact = unscaledValue.bitLength() < Long.SIZE;
+        writeVarLong(((zigZag(value.scale()) << 1) | (compact ? 0 : 1)) + 1);
+        if (compact) {
+            writeVarLong(zigZag(unscaledValue.longValue()));
+        } else {
+            writeBytes(unscaledValue.toByteArray());
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarInt(bytes.length);
+        if (bytes.length > BUFFER_SIZE - pos) {
+            flushBuffer();
+            if (bytes.length > BUFFER_SIZE) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        if (pos > BUFFER_SIZE - 10) {
+            flushBuffer();
+        }
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (pos == BUFFER_SIZE) {
+            flushBuffer();
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
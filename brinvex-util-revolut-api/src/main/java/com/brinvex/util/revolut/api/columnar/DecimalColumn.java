@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.columnar;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column of nullable decimals stored as unscaled longs with byte scales.
+ * The rare values which do not fit are kept aside as {@link BigDecimal} objects.
+ * Filled only while {@link TransactionColumns} is being built and never modified after.
+ */
+class DecimalColumn implements Serializable {
+
+    private static final byte NULL_SCALE = Byte.MIN_VALUE;
+
+    private static final byte OVERFLOW_SCALE = Byte.MIN_VALUE + 1;
+
+    private final long[] unscaledValues;
+
+    private final byte[] scales;
+
+    private Map<Integer, BigDecimal> overflowValues;
+
+    DecimalColumn(int size) {
+        this.unscaledValues = new long[size];
+        this.scales = new byte[size];
+    }
+
+    void set(int index, BigDecimal value) {
+        if (value == null) {
+            scales[index] = NULL_SCALE;
+            return;
+        }
+        int scale = value.scale();
+        BigInteger unscaledValue = value.unscaledValue();
+        if (scale > OVERFLOW_SCALE && scale <= Byte.MAX_VALUE && unscaledValue.bitLength() < Long.SIZE) {
+            unscaledValues[index] = unscaledValue.longValue();
+            scales[index] = (byte) scale;
+        } else {
+            if (overflowValues == null) {
+                overflowValues = new HashMap<>();
+            }
+            overflowValues.put(index, value);
+            scales[index] = OVERFLOW_SCALE;
+        }
+    }
+
+    BigDecimal get(int index) {
+        byte scale = scales[index];
+        switch (scale) {
+            case NULL_SCALE:
+                return null;
+            case OVERFLOW_SCALE:
+                return overflowValues.get(index);
+            default:
+                return BigDecimal.valueOf(unscaledValues[index], scale);
+        }
+    }
+
+    boolean isNull(int index) {
+        return scales[index] == NULL_SCALE;
+    }
+}
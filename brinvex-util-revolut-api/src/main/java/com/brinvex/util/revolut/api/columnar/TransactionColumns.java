@@ -0,0 +1,404 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.columnar;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable columnar representation of a list of transactions, a memory-saving alternative
+ * to a long {@code List<Transaction>}.
+ * <p>
+ * Dates are kept as epoch seconds with a zone id, decimals as unscaled longs with byte scales,
+ * enums as byte ordinals and strings as int ids into a dictionary shared by all string columns.
+ * Rows are accessed through lightweight read-only {@link TransactionRow} views.
+ */
+public class TransactionColumns implements Serializable {
+
+    static final int NULL_ID = -1;
+
+    private static final byte NULL_ORDINAL = -1;
+
+    private static class LazyHolder {
+
+        private static final TransactionType[] TRANSACTION_TYPES = TransactionType.values();
+
+        private static final TransactionSide[] TRANSACTION_SIDES = TransactionSide.values();
+
+        private static final Currency[] CURRENCIES = Currency.values();
+    }
+
+    private final int size;
+
+    private final long[] epochSeconds;
+
+    /**
+     * Null if all dates are whole seconds.
+     */
+    private final int[] nanos;
+
+    private final int[] zoneIds;
+
+    private final byte[] types;
+
+    private final byte[] sides;
+
+    private final byte[] currencies;
+
+    private final int[] symbolIds;
+
+    private final int[] countryIds;
+
+    private final int[] securityNameIds;
+
+    private final int[] isinIds;
+
+    private final DecimalColumn quantities;
+
+    private final DecimalColumn prices;
+
+    private final DecimalColumn values;
+
+    private final DecimalColumn grossAmounts;
+
+    private final DecimalColumn withholdingTaxes;
+
+    private final DecimalColumn fees;
+
+    private final DecimalColumn commissions;
+
+    private final ZoneId[] zones;
+
+    private final String[] strings;
+
+    private TransactionColumns(Builder builder) {
+        this.size = builder.size;
+        this.epochSeconds = builder.epochSeconds;
+        this.nanos = builder.nanos;
+        this.zoneIds = builder.zoneIds;
+        this.types = builder.types;
+        this.sides = builder.sides;
+        this.currencies = builder.currencies;
+        this.symbolIds = builder.symbolIds;
+        this.countryIds = builder.countryIds;
+        this.securityNameIds = builder.securityNameIds;
+        this.isinIds = builder.isinIds;
+        this.quantities = builder.quantities;
+        this.prices = builder.prices;
+        this.values = builder.values;
+        this.grossAmounts = builder.grossAmounts;
+        this.withholdingTaxes = builder.withholdingTaxes;
+        this.fees = builder.fees;
+        this.commissions = builder.commissions;
+        this.zones = new ZoneId[builder.zoneDictionary.size()];
+        builder.zoneDictionary.forEach((zone, id) -> zones[id] = zone);
+        this.strings = new String[builder.stringDictionary.size()];
+        builder.stringDictionary.forEach((string, id) -> strings[id] = string);
+    }
+
+    public static TransactionColumns of(List<Transaction> transactions) {
+        int size = transactions.size();
+        Builder builder = new Builder(size);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction == null) {
+                throw new IllegalArgumentException(String.format("Null transaction at index %s", i));
+            }
+            builder.set(i, transaction);
+        }
+        return new TransactionColumns(builder);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TransactionRow getRow(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %s out of bounds for size %s", index, size));
+        }
+        return new TransactionRow(this, index);
+    }
+
+    /**
+     * @return read-only list of row views
+     */
+    public List<TransactionRow> getRows() {
+        return new RowList();
+    }
+
+    /**
+     * @return string of the given id as returned by {@link TransactionRow#getSymbolId()} and similar
+     */
+    public String getString(int id) {
+        return id == NULL_ID ? null : strings[id];
+    }
+
+    /**
+     * @return number of distinct strings, all ids are lower than this
+     */
+    public int getStringCount() {
+        return strings.length;
+    }
+
+    /**
+     * @return new mutable transaction beans
+     */
+    public List<Transaction> toTransactions() {
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(toTransaction(i));
+        }
+        return transactions;
+    }
+
+    Transaction toTransaction(int i) {
+        Transaction transaction = new Transaction();
+        transaction.setDate(getDate(i));
+        transaction.setType(getType(i));
+        transaction.setSymbol(getString(symbolIds[i]));
+        transaction.setCountry(getString(countryIds[i]));
+        transaction.setQuantity(quantities.get(i));
+        transaction.setPrice(prices.get(i));
+        transaction.setValue(values.get(i));
+        transaction.setGrossAmount(grossAmounts.get(i));
+        transaction.setWithholdingTax(withholdingTaxes.get(i));
+        transaction.setSide(getSide(i));
+        transaction.setFees(fees.get(i));
+        transaction.setCommission(commissions.get(i));
+        transaction.setSecurityName(getString(securityNameIds[i]));
+        transaction.setIsin(getString(isinIds[i]));
+        transaction.setCurrency(getCurrency(i));
+        return transaction;
+    }
+
+    ZonedDateTime getDate(int i) {
+        int zoneId = zoneIds[i];
+        if (zoneId == NULL_ID) {
+            return null;
+        }
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds[i], getNano(i)), zones[zoneId]);
+    }
+
+    boolean hasDate(int i) {
+        return zoneIds[i] != NULL_ID;
+    }
+
+    long getEpochSecond(int i) {
+        return epochSeconds[i];
+    }
+
+    int getNano(int i) {
+        return nanos == null ? 0 : nanos[i];
+    }
+
+    TransactionType getType(int i) {
+        byte ordinal = types[i];
+        return ordinal == NULL_ORDINAL ? null : LazyHolder.TRANSACTION_TYPES[ordinal];
+    }
+
+    TransactionSide getSide(int i) {
+        byte ordinal = sides[i];
+        return ordinal == NULL_ORDINAL ? null : LazyHolder.TRANSACTION_SIDES[ordinal];
+    }
+
+    Currency getCurrency(int i) {
+        byte ordinal = currencies[i];
+        return ordinal == NULL_ORDINAL ? null : LazyHolder.CURRENCIES[ordinal];
+    }
+
+    int getSymbolId(int i) {
+        return symbolIds[i];
+    }
+
+    int getCountryId(int i) {
+        return countryIds[i];
+    }
+
+    int getSecurityNameId(int i) {
+        return securityNameIds[i];
+    }
+
+    int getIsinId(int i) {
+        return isinIds[i];
+    }
+
+    DecimalColumn getQuantities() {
+        return quantities;
+    }
+
+    DecimalColumn getPrices() {
+        return prices;
+    }
+
+    DecimalColumn getValues() {
+        return values;
+    }
+
+    DecimalColumn getGrossAmounts() {
+        return grossAmounts;
+    }
+
+    DecimalColumn getWithholdingTaxes() {
+        return withholdingTaxes;
+    }
+
+    DecimalColumn getFees() {
+        return fees;
+    }
+
+    DecimalColumn getCommissions() {
+        return commissions;
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        if (value == null) {
+            return NULL_ORDINAL;
+        }
+        int ordinal = value.ordinal();
+        if (ordinal > Byte.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Too many constants of %s", value.getDeclaringClass()));
+        }
+        return (byte) ordinal;
+    }
+
+    /**
+     * Fills all columns before they are handed over to the final fields of {@link TransactionColumns}.
+     */
+    private static class Builder {
+
+        private final int size;
+
+        private final long[] epochSeconds;
+
+        private int[] nanos;
+
+        private final int[] zoneIds;
+
+        private final byte[] types;
+
+        private final byte[] sides;
+
+        private final byte[] currencies;
+
+        private final int[] symbolIds;
+
+        private final int[] countryIds;
+
+        private final int[] securityNameIds;
+
+        private final int[] isinIds;
+
+        private final DecimalColumn quantities;
+
+        private final DecimalColumn prices;
+
+        private final DecimalColumn values;
+
+        private final DecimalColumn grossAmounts;
+
+        private final DecimalColumn withholdingTaxes;
+
+        private final DecimalColumn fees;
+
+        private final DecimalColumn commissions;
+
+        private final Map<ZoneId, Integer> zoneDictionary = new HashMap<>();
+
+        private final Map<String, Integer> stringDictionary = new HashMap<>();
+
+        private Builder(int size) {
+            this.size = size;
+            this.epochSeconds = new long[size];
+            this.zoneIds = new int[size];
+            this.types = new byte[size];
+            this.sides = new byte[size];
+            this.currencies = new byte[size];
+            this.symbolIds = new int[size];
+            this.countryIds = new int[size];
+            this.securityNameIds = new int[size];
+            this.isinIds = new int[size];
+            this.quantities = new DecimalColumn(size);
+            this.prices = new DecimalColumn(size);
+            this.values = new DecimalColumn(size);
+            this.grossAmounts = new DecimalColumn(size);
+            this.withholdingTaxes = new DecimalColumn(size);
+            this.fees = new DecimalColumn(size);
+            this.commissions = new DecimalColumn(size);
+        }
+
+        private void set(int i, Transaction transaction) {
+            ZonedDateTime date = transaction.getDate();
+            if (date == null) {
+                zoneIds[i] = NULL_ID;
+            } else {
+                epochSeconds[i] = date.toEpochSecond();
+                int nano = date.getNano();
+                if (nano != 0) {
+                    if (nanos == null) {
+                        nanos = new int[size];
+                    }
+                    nanos[i] = nano;
+                }
+                zoneIds[i] = zoneDictionary.computeIfAbsent(date.getZone(), k -> zoneDictionary.size());
+            }
+            types[i] = ordinal(transaction.getType());
+            sides[i] = ordinal(transaction.getSide());
+            currencies[i] = ordinal(transaction.getCurrency());
+            symbolIds[i] = id(transaction.getSymbol());
+            countryIds[i] = id(transaction.getCountry());
+            securityNameIds[i] = id(transaction.getSecurityName());
+            isinIds[i] = id(transaction.getIsin());
+            quantities.set(i, transaction.getQuantity());
+            prices.set(i, transaction.getPrice());
+            values.set(i, transaction.getValue());
+            grossAmounts.set(i, transaction.getGrossAmount());
+            withholdingTaxes.set(i, transaction.getWithholdingTax());
+            fees.set(i, transaction.getFees());
+            commissions.set(i, transaction.getCommission());
+        }
+
+        private int id(String value) {
+            return value == null ? NULL_ID : stringDictionary.computeIfAbsent(value, k -> stringDictionary.size());
+        }
+    }
+
+    private class RowList extends AbstractList<TransactionRow> implements RandomAccess {
+
+        @Override
+        public TransactionRow get(int index) {
+            return getRow(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.columnar;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * Read-only view of one row of {@link TransactionColumns}.
+ * Getters mirror those of {@link Transaction} and assemble the values from the columns on every call.
+ */
+public final class TransactionRow {
+
+    private final TransactionColumns columns;
+
+    private final int index;
+
+    TransactionRow(TransactionColumns columns, int index) {
+        this.columns = columns;
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ZonedDateTime getDate() {
+        return columns.getDate(index);
+    }
+
+    /**
+     * @return epoch second of the date without creating the date object
+     */
+    public long getEpochSecond() {
+        if (!columns.hasDate(index)) {
+            throw new IllegalStateException(String.format("Transaction without date at index %s", index));
+        }
+        return columns.getEpochSecond(index);
+    }
+
+    public TransactionType getType() {
+        return columns.getType(index);
+    }
+
+    public String getSymbol() {
+        return columns.getString(columns.getSymbolId(index));
+    }
+
+    /**
+     * @return id of the symbol, see {@link TransactionColumns#getString(int)}, or -1 if there is no symbol
+     */
+    public int getSymbolId() {
+        return columns.getSymbolId(index);
+    }
+
+    public String getCountry() {
+        return columns.getString(columns.getCountryId(index));
+    }
+
+    public BigDecimal getQuantity() {
+        return columns.getQuantities().get(index);
+    }
+
+    public BigDecimal getPrice() {
+        return columns.getPrices().get(index);
+    }
+
+    public BigDecimal getValue() {
+        return columns.getValues().get(index);
+    }
+
+    public BigDecimal getGrossAmount() {
+        return columns.getGrossAmounts().get(index);
+    }
+
+    public BigDecimal getWithholdingTax() {
+        return columns.getWithholdingTaxes().get(index);
+    }
+
+    public TransactionSide getSide() {
+        return columns.getSide(index);
+    }
+
+    public BigDecimal getFees() {
+        return columns.getFees().get(index);
+    }
+
+    public BigDecimal getCommission() {
+        return columns.getCommissions().get(index);
+    }
+
+    public String getSecurityName() {
+        return columns.getString(columns.getSecurityNameId(index));
+    }
+
+    public String getIsin() {
+        return columns.getString(columns.getIsinId(index));
+    }
+
+    /**
+     * @return id of the ISIN, see {@link TransactionColumns#getString(int)}, or -1 if there is no ISIN
+     */
+    public int getIsinId() {
+        return columns.getIsinId(index);
+    }
+
+    public Currency getCurrency() {
+        return columns.getCurrency(index);
+    }
+
+    /**
+     * @return new mutable transaction bean with the values of this row
+     */
+    public Transaction toTransaction() {
+        return columns.toTransaction(index);
+    }
+
+    @Override
+    public String toString() {
+        return toTransaction().toString();
+    }
+}
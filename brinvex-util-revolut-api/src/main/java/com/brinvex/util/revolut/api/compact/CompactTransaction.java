@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.compact;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, type-specific alternative to the wide {@link Transaction} bean.
+ * Every variant carries only the fields its {@link TransactionType} can have
+ * and keeps the date as an instant and an offset.
+ * <p>
+ * {@link #of(Transaction)} and {@link #toTransaction()} convert between both representations.
+ */
+public sealed interface CompactTransaction permits Trade, Dividend, CashMovement, CustodyFee, CorporateAction {
+
+    Instant instant();
+
+    ZoneOffset offset();
+
+    TransactionType type();
+
+    String symbol();
+
+    BigDecimal value();
+
+    BigDecimal fees();
+
+    BigDecimal commission();
+
+    Currency currency();
+
+    default ZonedDateTime date() {
+        return ZonedDateTime.ofInstant(instant(), offset());
+    }
+
+    /**
+     * @return new mutable transaction bean with the values of this transaction
+     */
+    Transaction toTransaction();
+
+    /**
+     * Converts a transaction bean to its variant. A date with a region zone is reduced to its offset.
+     *
+     * @throws IllegalArgumentException if the transaction has no type or date
+     *                                  or has a field its type does not allow
+     */
+    static CompactTransaction of(Transaction transaction) {
+        TransactionType type = transaction.getType();
+        if (type == null) {
+            throw new IllegalArgumentException(String.format("Missing type: %s", transaction));
+        }
+        ZonedDateTime date = transaction.getDate();
+        if (date == null) {
+            throw new IllegalArgumentException(String.format("Missing date: %s", transaction));
+        }
+        Instant instant = date.toInstant();
+        ZoneOffset offset = date.getOffset();
+        switch (type) {
+            case TRADE_LIMIT:
+            case TRADE_MARKET:
+                checkAbsent(transaction, "grossAmount", transaction.getGrossAmount());
+                checkAbsent(transaction, "withholdingTax", transaction.getWithholdingTax());
+                checkAbsent(transaction, "securityName", transaction.getSecurityName());
+                checkAbsent(transaction, "isin", transaction.getIsin());
+                checkAbsent(transaction, "country", transaction.getCountry());
+                return new Trade(instant, offset, type, transaction.getSymbol(), transaction.getSide(),
+                        transaction.getQuantity(), transaction.getPrice(), transaction.getValue(),
+                        transaction.getFees(), transaction.getCommission(), transaction.getCurrency());
+            case DIVIDEND:
+                checkAbsent(transaction, "quantity", transaction.getQuantity());
+                checkAbsent(transaction, "price", transaction.getPrice());
+                checkAbsent(transaction, "side", transaction.getSide());
+                return new Dividend(instant, offset, transaction.getSymbol(), transaction.getSecurityName(),
+                        transaction.getIsin(), transaction.getCountry(), transaction.getGrossAmount(),
+                        transaction.getWithholdingTax(), transaction.getValue(),
+                        transaction.getFees(), transaction.getCommission(), transaction.getCurrency());
+            case CASH_TOP_UP:
+            case CASH_WITHDRAWAL:
+            case CUSTODY_FEE:
+                checkAbsent(transaction, "quantity", transaction.getQuantity());
+                checkAbsent(transaction, "price", transaction.getPrice());
+                checkAbsent(transaction, "side", transaction.getSide());
+                checkAbsent(transaction, "grossAmount", transaction.getGrossAmount());
+                checkAbsent(transaction, "withholdingTax", transaction.getWithholdingTax());
+                checkAbsent(transaction, "securityName", transaction.getSecurityName());
+                checkAbsent(transaction, "isin", transaction.getIsin());
+                checkAbsent(transaction, "country", transaction.getCountry());
+                if (type == TransactionType.CUSTODY_FEE) {
+                    return new CustodyFee(instant, offset, transaction.getSymbol(), transaction.getValue(),
+                            transaction.getFees(), transaction.getCommission(), transaction.getCurrency());
+                }
+                return new CashMovement(instant, offset, type, transaction.getSymbol(), transaction.getValue(),
+                        transaction.getFees(), transaction.getCommission(), transaction.getCurrency());
+            case SPINOFF:
+            case STOCK_SPLIT:
+                checkAbsent(transaction, "price", transaction.getPrice());
+                checkAbsent(transaction, "side", transaction.getSide());
+                checkAbsent(transaction, "grossAmount", transaction.getGrossAmount());
+                checkAbsent(transaction, "withholdingTax", transaction.getWithholdingTax());
+                checkAbsent(transaction, "securityName", transaction.getSecurityName());
+                checkAbsent(transaction, "isin", transaction.getIsin());
+                checkAbsent(transaction, "country", transaction.getCountry());
+                return new CorporateAction(instant, offset, type, transaction.getSymbol(), transaction.getQuantity(),
+                        transaction.getValue(), transaction.getFees(), transaction.getCommission(), transaction.getCurrency());
+            default:
+                throw new IllegalStateException("Unexpected value: " + type);
+        }
+    }
+
+    static List<CompactTransaction> ofAll(List<Transaction> transactions) {
+        List<CompactTransaction> results = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            results.add(of(transaction));
+        }
+        return results;
+    }
+
+    static List<Transaction> toTransactions(List<? extends CompactTransaction> transactions) {
+        List<Transaction> results = new ArrayList<>(transactions.size());
+        for (CompactTransaction transaction : transactions) {
+            results.add(transaction.toTransaction());
+        }
+        return results;
+    }
+
+    private static void checkAbsent(Transaction transaction, String field, Object value) {
+        if (value != null) {
+            throw new IllegalArgumentException(String.format(
+                    "Unexpected %s of %s transaction: %s", field, transaction.getType(), transaction));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.compact;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Trade of {@link TransactionType#TRADE_LIMIT} or {@link TransactionType#TRADE_MARKET} type.
+ */
+public record Trade(
+        Instant instant,
+        ZoneOffset offset,
+        TransactionType type,
+        String symbol,
+        TransactionSide side,
+        BigDecimal quantity,
+        BigDecimal price,
+        BigDecimal value,
+        BigDecimal fees,
+        BigDecimal commission,
+        Currency currency
+) implements CompactTransaction {
+
+    public Trade {
+        if (type != TransactionType.TRADE_LIMIT && type != TransactionType.TRADE_MARKET) {
+            throw new IllegalArgumentException(String.format("Unexpected type of Trade: %s", type));
+        }
+    }
+
+    @Override
+    public Transaction toTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setDate(date());
+        transaction.setType(type());
+        transaction.setSymbol(symbol);
+        transaction.setSide(side);
+        transaction.setQuantity(quantity);
+        transaction.setPrice(price);
+        transaction.setValue(value);
+        transaction.setFees(fees);
+        transaction.setCommission(commission);
+        transaction.setCurrency(currency);
+        return transaction;
+    }
+}
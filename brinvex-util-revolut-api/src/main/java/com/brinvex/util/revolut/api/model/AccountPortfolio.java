@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Data object representing the consolidated statements of one account - its portfolio period and portfolio values.
+ */
+public class AccountPortfolio implements Serializable {
+
+    private String accountNumber;
+
+    private String accountName;
+
+    private PortfolioPeriod portfolioPeriod;
+
+    private Map<LocalDate, PortfolioValue> portfolioValues;
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public void setAccountName(String accountName) {
+        this.accountName = accountName;
+    }
+
+    public PortfolioPeriod getPortfolioPeriod() {
+        return portfolioPeriod;
+    }
+
+    public void setPortfolioPeriod(PortfolioPeriod portfolioPeriod) {
+        this.portfolioPeriod = portfolioPeriod;
+    }
+
+    public Map<LocalDate, PortfolioValue> getPortfolioValues() {
+        return portfolioValues;
+    }
+
+    public void setPortfolioValues(Map<LocalDate, PortfolioValue> portfolioValues) {
+        this.portfolioValues = portfolioValues;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", AccountPortfolio.class.getSimpleName() + "[", "]")
+                .add("accountNumber='" + accountNumber + "'")
+                .add("accountName='" + accountName + "'")
+                .add("portfolioPeriod=" + portfolioPeriod)
+                .add("portfolioValues=" + portfolioValues)
+                .toString();
+    }
+}
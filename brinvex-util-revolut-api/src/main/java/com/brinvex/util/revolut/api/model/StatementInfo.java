@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.StringJoiner;
+
+/**
+ * Data object representing the header of a Revolut statement - its type, account and period.
+ */
+public class StatementInfo implements Serializable {
+
+    private StatementType type;
+
+    private String accountNumber;
+
+    private String accountName;
+
+    private LocalDate periodFrom;
+
+    private LocalDate periodTo;
+
+    public StatementType getType() {
+        return type;
+    }
+
+    public void setType(StatementType type) {
+        this.type = type;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public void setAccountName(String accountName) {
+        this.accountName = accountName;
+    }
+
+    public LocalDate getPeriodFrom() {
+        return periodFrom;
+    }
+
+    public void setPeriodFrom(LocalDate periodFrom) {
+        this.periodFrom = periodFrom;
+    }
+
+    public LocalDate getPeriodTo() {
+        return periodTo;
+    }
+
+    public void setPeriodTo(LocalDate periodTo) {
+        this.periodTo = periodTo;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", StatementInfo.class.getSimpleName() + "[", "]")
+                .add("type=" + type)
+                .add("accountNumber='" + accountNumber + "'")
+                .add("accountName='" + accountName + "'")
+                .add("periodFrom=" + periodFrom)
+                .add("periodTo=" + periodTo)
+                .toString();
+    }
+}
@@ -15,17 +15,25 @@
  */
 package com.brinvex.util.revolut.api.service;
 
+import com.brinvex.util.revolut.api.compact.CompactTransaction;
+import com.brinvex.util.revolut.api.model.AccountPortfolio;
 import com.brinvex.util.revolut.api.model.PortfolioPeriod;
 import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.StatementInfo;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.service.exception.InvalidStatementException;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -53,22 +61,175 @@ public interface RevolutService {
      * See {@link RevolutService#processStatements(Stream)}
      */
     default PortfolioPeriod processStatements(Collection<Path> statementFilePaths) {
-        return processStatements(statementFilePaths
-                .stream()
-                .map(f -> () -> {
-                    try {
-                        return new FileInputStream(f.toFile());
-                    } catch (FileNotFoundException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                }));
+        return processStatements(toInputStreamSuppliers(statementFilePaths));
+    }
+
+    /**
+     * Same as {@link RevolutService#processStatements(Stream)} but reads and parses the statements
+     * concurrently on the given executor. At most {@code maxStatementsInFlight} statements are being read
+     * at the same time. Consolidation runs on the caller thread once all statements are parsed
+     * and its result does not depend on the order in which the statements finished.
+     *
+     * @param statementInputStreams stream of statement inputStreams
+     * @param executor              executor running the per-statement read and parse tasks
+     * @param maxStatementsInFlight maximum number of statements being read and parsed at the same time
+     * @return {@link PortfolioPeriod}
+     */
+    PortfolioPeriod processStatements(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Executor executor,
+            int maxStatementsInFlight
+    );
+
+    /**
+     * See {@link RevolutService#processStatements(Stream, Executor, int)}
+     */
+    default PortfolioPeriod processStatements(
+            Collection<Path> statementFilePaths,
+            Executor executor,
+            int maxStatementsInFlight
+    ) {
+        return processStatements(toInputStreamSuppliers(statementFilePaths), executor, maxStatementsInFlight);
+    }
+
+    /**
+     * Same as {@link RevolutService#processStatements(Stream)} but the consolidated transactions
+     * are pushed to the given sink in date order instead of being collected,
+     * so only the transactions of a short deduplication window are held in memory at a time.
+     * <p>
+     * To process the statements in the order of their periods, each statement is sniffed first
+     * (see {@link #sniffStatement(InputStream)}) and parsed afterward,
+     * so every inputStream supplier is called twice.
+     *
+     * @param statementInputStreams stream of statement inputStreams
+     * @param transactionSink       receives the consolidated transactions in date order
+     * @return {@link PortfolioPeriod} without transactions
+     * @throws InvalidStatementException if the period of a statement is not found in its header, so it can not be put in order
+     */
+    PortfolioPeriod processStatements(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Consumer<Transaction> transactionSink
+    );
+
+    /**
+     * See {@link RevolutService#processStatements(Stream, Consumer)}
+     */
+    default PortfolioPeriod processStatements(
+            Collection<Path> statementFilePaths,
+            Consumer<Transaction> transactionSink
+    ) {
+        return processStatements(toInputStreamSuppliers(statementFilePaths), transactionSink);
+    }
 
+    /**
+     * Same as {@link RevolutService#processStatements(Stream, Consumer)} but every consolidated transaction
+     * is converted to a {@link CompactTransaction} before it is pushed to the sink,
+     * so a caller keeping the transactions retains the smaller records instead of the beans.
+     *
+     * @param statementInputStreams stream of statement inputStreams
+     * @param transactionSink       receives the consolidated transactions in date order
+     * @return {@link PortfolioPeriod} without transactions
+     * @throws InvalidStatementException if the period of a statement is not found in its header, so it can not be put in order
+     */
+    default PortfolioPeriod processStatementsCompact(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Consumer<CompactTransaction> transactionSink
+    ) {
+        return processStatements(statementInputStreams, transaction -> transactionSink.accept(CompactTransaction.of(transaction)));
+    }
+
+    /**
+     * See {@link RevolutService#processStatementsCompact(Stream, Consumer)}
+     */
+    default PortfolioPeriod processStatementsCompact(
+            Collection<Path> statementFilePaths,
+            Consumer<CompactTransaction> transactionSink
+    ) {
+        return processStatementsCompact(toInputStreamSuppliers(statementFilePaths), transactionSink);
+    }
+
+    /**
+     * Continues a previous {@link RevolutService#processStatements(Stream)} of one account with its new statements,
+     * e.g. the statement of the last month. The result is the same as processing all the statements again,
+     * but only the new statements and the last few days of the consolidated transactions are processed.
+     * <p>
+     * The new statements must start after the consolidated period, without a gap.
+     * The given {@link PortfolioPeriod} can be a deserialized copy of an earlier result; it is not modified.
+     *
+     * @param consolidatedPortfolioPeriod result of a previous processing of the statements of the account
+     * @param newStatementInputStreams    stream of inputStreams of the statements following the consolidated period
+     * @return {@link PortfolioPeriod}
+     */
+    PortfolioPeriod processNewStatements(
+            PortfolioPeriod consolidatedPortfolioPeriod,
+            Stream<Supplier<InputStream>> newStatementInputStreams
+    );
+
+    /**
+     * See {@link RevolutService#processNewStatements(PortfolioPeriod, Stream)}
+     */
+    default PortfolioPeriod processNewStatements(
+            PortfolioPeriod consolidatedPortfolioPeriod,
+            Collection<Path> newStatementFilePaths
+    ) {
+        return processNewStatements(consolidatedPortfolioPeriod, toInputStreamSuppliers(newStatementFilePaths));
+    }
+
+    /**
+     * Processes an unordered mix of statements of many accounts.
+     * The statements are grouped by the account number found in their header (see {@link #sniffStatement(InputStream)})
+     * and every account is consolidated like by {@link RevolutService#processStatements(Stream)}
+     * and {@link RevolutService#getPortfolioValues(Stream)}, the accounts concurrently on the given executor.
+     * <p>
+     * Every inputStream supplier is called twice, once for the header and once for the whole statement.
+     *
+     * @param statementInputStreams stream of statement inputStreams
+     * @param executor              executor running the per-statement sniff tasks and the per-account tasks
+     * @return {@link AccountPortfolio} by account number, sorted by account number
+     */
+    Map<String, AccountPortfolio> processStatementsByAccount(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Executor executor
+    );
+
+    /**
+     * See {@link RevolutService#processStatementsByAccount(Stream, Executor)}
+     */
+    default Map<String, AccountPortfolio> processStatementsByAccount(
+            Collection<Path> statementFilePaths,
+            Executor executor
+    ) {
+        return processStatementsByAccount(toInputStreamSuppliers(statementFilePaths), executor);
     }
 
     Map<LocalDate, PortfolioValue> getPortfolioValues(Stream<Supplier<InputStream>> statementInputStreams);
 
     default Map<LocalDate, PortfolioValue> getPortfolioValues(Collection<Path> statementFilePaths) {
-        return getPortfolioValues(statementFilePaths
+        return getPortfolioValues(toInputStreamSuppliers(statementFilePaths));
+    }
+
+    /**
+     * Detects the type, account and period of the given Revolut statement.
+     * Only the beginning of the first page is extracted, so this is much cheaper than parsing the statement.
+     *
+     * @param statementInputStream statement inputStream
+     * @return {@link StatementInfo}
+     */
+    StatementInfo sniffStatement(InputStream statementInputStream);
+
+    /**
+     * See {@link RevolutService#sniffStatement(InputStream)}
+     */
+    default StatementInfo sniffStatement(Path statementFilePath) {
+        try (InputStream is = new FileInputStream(statementFilePath.toFile())) {
+            return sniffStatement(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Stream<Supplier<InputStream>> toInputStreamSuppliers(Collection<Path> statementFilePaths) {
+        return statementFilePaths
                 .stream()
                 .map(f -> () -> {
                     try {
@@ -76,6 +237,6 @@ public interface RevolutService {
                     } catch (FileNotFoundException e) {
                         throw new UncheckedIOException(e);
                     }
-                }));
+                });
     }
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.codec;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Holding;
+import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfolioBinaryCodecTest {
+
+    @Test
+    void portfolioPeriodRoundTrip() throws IOException {
+        ZonedDateTime date = ZonedDateTime.parse("2023-01-03T15:00:01.123456789-05:00[America/New_York]");
+        Transaction tran = createTransaction(TransactionType.TRADE_MARKET, "AAPL", date);
+        tran.setPrice(new BigDecimal("123456789012345678901234567890.123456789"));
+        tran.setValue(new BigDecimal("-98765432109876543210"));
+        tran.setQuantity(new BigDecimal("1E+5"));
+        tran.setFees(BigDecimal.valueOf(Long.MIN_VALUE, 2));
+        tran.setCommission(BigDecimal.valueOf(Long.MAX_VALUE, -3));
+
+        Holding holding = new Holding();
+        holding.setSymbol("AAPL");
+        holding.setQuantity(new BigDecimal("10"));
+        PortfolioBreakdown breakdown = new PortfolioBreakdown();
+        breakdown.setDate(LocalDate.parse("2023-01-31"));
+        breakdown.setCash(Map.of(Currency.USD, new BigDecimal("1000.00")));
+        breakdown.setHoldings(Arrays.asList(holding, null, new Holding()));
+
+        PortfolioPeriod ptfPeriod = new PortfolioPeriod();
+        ptfPeriod.setAccountNumber("RE12345678");
+        ptfPeriod.setPeriodFrom(LocalDate.parse("2023-01-01"));
+        ptfPeriod.setPeriodTo(LocalDate.parse("2023-01-31"));
+        Map<LocalDate, PortfolioBreakdown> breakdowns = new TreeMap<>();
+        PortfolioBreakdown initialBreakdown = new PortfolioBreakdown();
+        Map<Currency, BigDecimal> initialCash = new HashMap<>();
+        initialCash.put(Currency.USD, null);
+        initialBreakdown.setCash(initialCash);
+        breakdowns.put(LocalDate.parse("2022-12-31"), initialBreakdown);
+        breakdowns.put(breakdown.getDate(), breakdown);
+        breakdowns.put(LocalDate.parse("2023-01-15"), null);
+        ptfPeriod.setPortfolioBreakdownSnapshots(breakdowns);
+        List<Transaction> trans = new ArrayList<>(Arrays.asList(tran, null, new Transaction()));
+        trans.addAll(createTransactions("TSLA", date));
+        ptfPeriod.setTransactions(trans);
+
+        PortfolioPeriod emptyPtfPeriod = new PortfolioPeriod();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PortfolioBinaryWriter writer = new PortfolioBinaryWriter(out)) {
+            writer.writePortfolioPeriod(ptfPeriod);
+            writer.writePortfolioPeriod(emptyPtfPeriod);
+        }
+        try (PortfolioBinaryReader reader = new PortfolioBinaryReader(new ByteArrayInputStream(out.toByteArray()))) {
+            PortfolioPeriod decodedPtfPeriod = reader.readPortfolioPeriod();
+            assertEquals(ptfPeriod.toString(), decodedPtfPeriod.toString());
+            assertInstanceOf(TreeMap.class, decodedPtfPeriod.getPortfolioBreakdownSnapshots());
+            assertInstanceOf(EnumMap.class, decodedPtfPeriod.getPortfolioBreakdownSnapshots().get(breakdown.getDate()).getCash());
+            assertEquals(ptfPeriod.getTransactions().get(0).getQuantity().scale(), decodedPtfPeriod.getTransactions().get(0).getQuantity().scale());
+
+            PortfolioPeriod decodedEmptyPtfPeriod = reader.readPortfolioPeriod();
+            assertEquals(emptyPtfPeriod.toString(), decodedEmptyPtfPeriod.toString());
+            assertNull(decodedEmptyPtfPeriod.getTransactions());
+            assertNull(decodedEmptyPtfPeriod.getPortfolioBreakdownSnapshots());
+
+            assertNull(reader.readPortfolioPeriod());
+        }
+    }
+
+    @Test
+    void longStringsAreWrittenOnce() throws IOException {
+        String longName = "Žltý kôň ".repeat(2_000);
+        Transaction tran1 = createTransaction(TransactionType.DIVIDEND, "AAPL", ZonedDateTime.parse("2023-01-03T15:00:01Z"));
+        tran1.setSecurityName(longName);
+        Transaction tran2 = createTransaction(TransactionType.DIVIDEND, "AAPL", ZonedDateTime.parse("2023-01-04T15:00:01Z"));
+        tran2.setSecurityName(new String(longName));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PortfolioBinaryWriter writer = new PortfolioBinaryWriter(out)) {
+            writer.writeTransaction(tran1);
+            writer.writeTransaction(tran2);
+        }
+        byte[] bytes = out.toByteArray();
+        assertTrue(bytes.length > PortfolioBinaryFormat.BUFFER_SIZE);
+        assertTrue(bytes.length < longName.getBytes(StandardCharsets.UTF_8).length + 100);
+
+        try (PortfolioBinaryReader reader = new PortfolioBinaryReader(new ByteArrayInputStream(bytes))) {
+            Transaction decodedTran1 = reader.readTransaction();
+            Transaction decodedTran2 = reader.readTransaction();
+            assertEquals(tran1.toString(), decodedTran1.toString());
+            assertEquals(tran2.toString(), decodedTran2.toString());
+            assertSame(decodedTran1.getSecurityName(), decodedTran2.getSecurityName());
+            assertSame(decodedTran1.getSymbol(), decodedTran2.getSymbol());
+            assertNull(reader.readTransaction());
+        }
+    }
+
+    @Test
+    void streamingRoundTrip() throws IOException {
+        List<Transaction> trans = new ArrayList<>();
+        ZonedDateTime date = ZonedDateTime.parse("2023-01-03T15:00:01Z");
+        for (int i = 0; i < 1_000; i++) {
+            for (Transaction tran : createTransactions("SYM" + (i % 50), date.plusSeconds(i % 2 == 0 ? i * 7L : -i))) {
+                tran.setValue(new BigDecimal(i).movePointLeft(i % 5));
+                trans.add(tran);
+            }
+        }
+        Holding holding = new Holding();
+        holding.setSymbol("SYM1");
+        holding.setValue(new BigDecimal("-0.01"));
+        PortfolioValue ptfValue = new PortfolioValue();
+        ptfValue.setDay(LocalDate.parse("2023-01-31"));
+        ptfValue.setTotalValue(new BigDecimal("2500.00"));
+        ptfValue.setCurrency(Currency.USD);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PortfolioBinaryWriter writer = new PortfolioBinaryWriter(out)) {
+            for (Transaction tran : trans) {
+                writer.writeTransaction(tran);
+            }
+            writer.writeHolding(holding);
+            writer.writePortfolioValue(ptfValue);
+            writer.writePortfolioValue(ptfValue);
+        }
+        try (PortfolioBinaryReader reader = new PortfolioBinaryReader(new ByteArrayInputStream(out.toByteArray()))) {
+            for (Transaction tran : trans) {
+                assertEquals(tran.toString(), reader.readTransaction().toString());
+            }
+            assertEquals(holding.toString(), reader.readHolding().toString());
+            assertEquals(ptfValue.toString(), reader.readPortfolioValue().toString());
+            assertEquals(ptfValue.toString(), reader.readPortfolioValue().toString());
+            assertNull(reader.readPortfolioValue());
+            assertNull(reader.readTransaction());
+        }
+        try (PortfolioBinaryReader reader = new PortfolioBinaryReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThrows(StreamCorruptedException.class, reader::readHolding);
+        }
+    }
+
+    @Test
+    void invalidData() {
+        //Symbol length 0x80000000 does not fit an int
+        assertThrows(StreamCorruptedException.class, () -> open(withHeader(2, 0, 0, 1, 0x80, 0x80, 0x80, 0x80, 0x08)).readTransaction());
+        assertThrows(StreamCorruptedException.class, () -> open(0x42, 0x52, 0x56, 0x51, 1));
+        assertThrows(EOFException.class, () -> open(0x42, 0x52));
+        //Symbol claiming Integer.MAX_VALUE bytes
+        assertThrows(EOFException.class, () -> open(withHeader(2, 0, 0, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 'A')).readTransaction());
+        //Symbol referring to an unknown string
+        assertThrows(StreamCorruptedException.class, () -> open(withHeader(2, 0, 0, 5)).readTransaction());
+    }
+
+    private static PortfolioBinaryReader open(int... data) throws IOException {
+        byte[] bytes = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            bytes[i] = (byte) data[i];
+        }
+        return new PortfolioBinaryReader(new ByteArrayInputStream(bytes));
+    }
+
+    private static int[] withHeader(int... data) {
+        int[] header = {0x42, 0x52, 0x56, 0x50, 1};
+        int[] result = Arrays.copyOf(header, header.length + data.length);
+        System.arraycopy(data, 0, result, header.length, data.length);
+        return result;
+    }
+
+    private static List<Transaction> createTransactions(String symbol, ZonedDateTime date) {
+        List<Transaction> trans = new ArrayList<>();
+        for (TransactionType type : TransactionType.values()) {
+            trans.add(createTransaction(type, symbol, date));
+        }
+        return trans;
+    }
+
+    /**
+     * @return transaction with the fields of its type only, so every type leaves other fields null,
+     * with region and offset zones and with decimals of negative, zero and large scales
+     */
+    private static Transaction createTransaction(TransactionType type, String symbol, ZonedDateTime date) {
+        Transaction tran = new Transaction();
+        tran.setType(type);
+        tran.setDate(date);
+        tran.setCurrency(Currency.USD);
+        switch (type) {
+            case TRADE_MARKET:
+                tran.setSymbol(symbol);
+                tran.setSide(TransactionSide.BUY);
+                tran.setQuantity(new BigDecimal("10"));
+                tran.setPrice(new BigDecimal("150.00"));
+                tran.setValue(new BigDecimal("-1500.00"));
+                tran.setFees(BigDecimal.ZERO);
+                break;
+            case TRADE_LIMIT:
+                tran.setSymbol(symbol);
+                tran.setDate(date.withZoneSameInstant(ZoneOffset.ofHoursMinutes(5, 30)));
+                tran.setSide(TransactionSide.SELL);
+                tran.setQuantity(new BigDecimal("0.000001234"));
+                tran.setPrice(new BigDecimal("1215559.1572123"));
+                tran.setValue(new BigDecimal("1.50"));
+                tran.setCommission(new BigDecimal("0.01"));
+                break;
+            case DIVIDEND:
+                tran.setSymbol(symbol);
+                tran.setSecurityName(symbol + " Inc");
+                tran.setIsin("US0378331005");
+                tran.setCountry("US");
+                tran.setGrossAmount(new BigDecimal("2.70"));
+                tran.setWithholdingTax(new BigDecimal("0.40"));
+                tran.setValue(new BigDecimal("2.30"));
+                break;
+            case SPINOFF:
+            case STOCK_SPLIT:
+                tran.setSymbol(symbol);
+                tran.setQuantity(new BigDecimal("1E+3"));
+                break;
+            case CASH_TOP_UP:
+                tran.setValue(new BigDecimal("2500"));
+                break;
+            case CASH_WITHDRAWAL:
+                tran.setDate(date.withZoneSameInstant(ZoneId.of("Europe/Bratislava")));
+                tran.setValue(new BigDecimal("-2500.00"));
+                break;
+            case CUSTODY_FEE:
+                tran.setValue(new BigDecimal("-0.12"));
+                tran.setFees(new BigDecimal("0.12"));
+                break;
+            default:
+                throw new IllegalStateException("Unexpected value: " + type);
+        }
+        return tran;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.columnar;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionColumnsTest {
+
+    @Test
+    void roundTrip() {
+        ZonedDateTime date = ZonedDateTime.parse("2023-01-03T15:00:01Z");
+        List<Transaction> trans = new ArrayList<>();
+
+        Transaction tran1 = createDividend("AAPL", "Apple Inc", date);
+        tran1.setQuantity(new BigDecimal("0.123456789"));
+        trans.add(tran1);
+
+        Transaction tran2 = createDividend("TSLA", null, date.withZoneSameInstant(ZoneId.of("America/New_York")).plusNanos(123_456_789));
+        tran2.setType(TransactionType.TRADE_LIMIT);
+        tran2.setSide(TransactionSide.SELL);
+        tran2.setIsin(null);
+        tran2.setCountry(null);
+        //Beyond a long, beyond a byte scale and the overflow scale sentinel itself
+        tran2.setPrice(new BigDecimal("123456789012345678901234567890.12"));
+        tran2.setValue(BigDecimal.valueOf(1, 200));
+        tran2.setGrossAmount(BigDecimal.valueOf(5, -127));
+        tran2.setWithholdingTax(BigDecimal.valueOf(Long.MIN_VALUE, 2));
+        tran2.setCommission(BigDecimal.valueOf(7, -128));
+        trans.add(tran2);
+
+        //The strings of the same security share ids, missing ones have none
+        Transaction tran3 = createDividend("AAPL", "Apple Inc", date.withZoneSameInstant(ZoneId.of("+05:30")).plusNanos(1));
+        tran3.setIsin(null);
+        tran3.setCountry(null);
+        tran3.setGrossAmount(null);
+        tran3.setWithholdingTax(null);
+        tran3.setValue(null);
+        trans.add(tran3);
+
+        trans.add(new Transaction());
+
+        TransactionColumns columns = TransactionColumns.of(trans);
+        assertEquals(trans.size(), columns.size());
+        assertEquals(trans.toString(), columns.toTransactions().toString());
+        for (int i = 0; i < trans.size(); i++) {
+            Transaction tran = trans.get(i);
+            TransactionRow row = columns.getRows().get(i);
+            assertEquals(tran.toString(), row.toTransaction().toString());
+            assertEquals(tran.getDate(), row.getDate());
+            assertEquals(tran.getPrice(), row.getPrice());
+            assertEquals(tran.getValue(), row.getValue());
+            assertEquals(tran.getSecurityName(), row.getSecurityName());
+        }
+        assertEquals(tran2.getGrossAmount().scale(), columns.getRow(1).getGrossAmount().scale());
+        assertEquals(columns.getRow(0).getSymbolId(), columns.getRow(2).getSymbolId());
+        assertEquals(-1, columns.getRow(2).getIsinId());
+        assertNull(columns.getRow(3).getSymbol());
+        assertNull(columns.getRow(3).getDate());
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.getRow(trans.size()));
+    }
+
+    @Test
+    void wholeSecondsOnly() {
+        ZonedDateTime date = ZonedDateTime.parse("2023-01-03T15:00:01Z");
+        List<Transaction> trans = List.of(createDividend("AAPL", "Apple Inc", date), createDividend("AAPL", "Apple Inc", date.plusDays(1)));
+        TransactionColumns columns = TransactionColumns.of(trans);
+        assertEquals(trans.toString(), columns.toTransactions().toString());
+        //Symbol, security name, ISIN and country, each stored once
+        assertEquals(4, columns.getStringCount());
+    }
+
+    /**
+     * @return dividend filling every string column and the tax columns
+     */
+    private static Transaction createDividend(String symbol, String securityName, ZonedDateTime date) {
+        Transaction tran = new Transaction();
+        tran.setType(TransactionType.DIVIDEND);
+        tran.setDate(date);
+        tran.setSymbol(symbol);
+        tran.setSecurityName(securityName);
+        tran.setIsin("US0000000000");
+        tran.setCountry("US");
+        tran.setCurrency(Currency.USD);
+        tran.setGrossAmount(new BigDecimal("2.70"));
+        tran.setWithholdingTax(new BigDecimal("0.405"));
+        tran.setValue(new BigDecimal("2.295"));
+        return tran;
+    }
+}
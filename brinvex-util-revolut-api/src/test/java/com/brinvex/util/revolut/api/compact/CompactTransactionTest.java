@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.api.compact;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompactTransactionTest {
+
+    private static final ZonedDateTime DATE = ZonedDateTime.parse("2023-01-03T15:00:01.5+01:00");
+
+    @Test
+    void roundTripOfEveryType() {
+        List<Transaction> trans = new ArrayList<>();
+        for (TransactionType type : TransactionType.values()) {
+            trans.add(createTransaction(type));
+            Transaction sparseTran = createTransaction(type);
+            sparseTran.setSide(null);
+            sparseTran.setPrice(null);
+            sparseTran.setFees(null);
+            sparseTran.setCommission(null);
+            sparseTran.setSymbol(null);
+            trans.add(sparseTran);
+        }
+
+        List<CompactTransaction> compactTrans = CompactTransaction.ofAll(trans);
+        assertEquals(trans.size(), compactTrans.size());
+        for (int i = 0; i < trans.size(); i++) {
+            Transaction tran = trans.get(i);
+            CompactTransaction compactTran = compactTrans.get(i);
+            assertEquals(tran.getType(), compactTran.type());
+            assertEquals(tran.getDate(), compactTran.date());
+            assertEquals(tran.toString(), compactTran.toTransaction().toString());
+        }
+        assertEquals(trans.toString(), CompactTransaction.toTransactions(compactTrans).toString());
+
+        assertInstanceOf(Trade.class, CompactTransaction.of(createTransaction(TransactionType.TRADE_LIMIT)));
+        assertInstanceOf(Dividend.class, CompactTransaction.of(createTransaction(TransactionType.DIVIDEND)));
+        assertInstanceOf(CashMovement.class, CompactTransaction.of(createTransaction(TransactionType.CASH_WITHDRAWAL)));
+        assertInstanceOf(CustodyFee.class, CompactTransaction.of(createTransaction(TransactionType.CUSTODY_FEE)));
+        assertInstanceOf(CorporateAction.class, CompactTransaction.of(createTransaction(TransactionType.SPINOFF)));
+    }
+
+    @Test
+    void regionZoneIsReducedToOffset() {
+        Transaction tran = createTransaction(TransactionType.TRADE_MARKET);
+        tran.setDate(DATE.withZoneSameInstant(ZoneId.of("America/New_York")));
+        CompactTransaction compactTran = CompactTransaction.of(tran);
+        assertEquals(tran.getDate().toInstant(), compactTran.instant());
+        assertEquals(tran.getDate().toOffsetDateTime(), compactTran.toTransaction().getDate().toOffsetDateTime());
+    }
+
+    @Test
+    void invalidTransactions() {
+        assertThrows(IllegalArgumentException.class, () -> CompactTransaction.of(new Transaction()));
+        Transaction undatedTran = createTransaction(TransactionType.DIVIDEND);
+        undatedTran.setDate(null);
+        assertThrows(IllegalArgumentException.class, () -> CompactTransaction.of(undatedTran));
+        Transaction tradeWithIsin = createTransaction(TransactionType.TRADE_MARKET);
+        tradeWithIsin.setIsin("US0378331005");
+        assertThrows(IllegalArgumentException.class, () -> CompactTransaction.of(tradeWithIsin));
+        Transaction cashWithQuantity = createTransaction(TransactionType.CASH_TOP_UP);
+        cashWithQuantity.setQuantity(BigDecimal.ONE);
+        assertThrows(IllegalArgumentException.class, () -> CompactTransaction.of(cashWithQuantity));
+    }
+
+    /**
+     * @return transaction with every field its type allows
+     */
+    private static Transaction createTransaction(TransactionType type) {
+        Transaction tran = new Transaction();
+        tran.setType(type);
+        tran.setDate(DATE);
+        tran.setSymbol("AAPL");
+        tran.setValue(new BigDecimal("1500.00"));
+        tran.setFees(new BigDecimal("0.01"));
+        tran.setCommission(new BigDecimal("0.02"));
+        tran.setCurrency(Currency.USD);
+        switch (type) {
+            case TRADE_LIMIT:
+            case TRADE_MARKET:
+                tran.setSide(TransactionSide.SELL);
+                tran.setQuantity(new BigDecimal("10.5"));
+                tran.setPrice(new BigDecimal("142.857142"));
+                break;
+            case DIVIDEND:
+                tran.setSecurityName("Apple Inc");
+                tran.setIsin("US0378331005");
+                tran.setCountry("US");
+                tran.setGrossAmount(new BigDecimal("1764.71"));
+                tran.setWithholdingTax(new BigDecimal("264.71"));
+                break;
+            case SPINOFF:
+            case STOCK_SPLIT:
+                tran.setQuantity(new BigDecimal("3"));
+                break;
+            case CASH_TOP_UP:
+            case CASH_WITHDRAWAL:
+            case CUSTODY_FEE:
+                break;
+            default:
+                throw new IllegalStateException("Unexpected value: " + type);
+        }
+        return tran;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl;
+
+import com.brinvex.util.revolut.api.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * Identity of a dividend used to merge the same dividend reported by different statements.
+ * Two keys are equal exactly when the lists {@code [localDate, symbol, value(2)]}
+ * with the value rounded half-up to two decimals would be equal.
+ * See {@link TransactionKey}.
+ */
+final class DividendTransactionKey {
+
+    private static final int VALUE_SCALE = 2;
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final long epochDay;
+
+    private final String symbol;
+
+    private final boolean nullValue;
+
+    private final long value;
+
+    /**
+     * Rounded value, only if it has more than 18 digits.
+     */
+    private final BigDecimal oversizedValue;
+
+    private final int hash;
+
+    private DividendTransactionKey(Transaction transaction) {
+        ZonedDateTime date = transaction.getDate();
+        this.epochDay = Math.floorDiv(date.toEpochSecond() + date.getOffset().getTotalSeconds(), SECONDS_PER_DAY);
+        this.symbol = transaction.getSymbol();
+
+        BigDecimal rawValue = transaction.getValue();
+        long value = TransactionKey.unscaled(rawValue, VALUE_SCALE);
+        this.nullValue = rawValue == null;
+        this.value = value;
+        this.oversizedValue = value == TransactionKey.OVERSIZED ? rawValue.setScale(VALUE_SCALE, RoundingMode.HALF_UP) : null;
+
+        int h = Long.hashCode(epochDay);
+        h = 31 * h + Objects.hashCode(symbol);
+        h = 31 * h + Boolean.hashCode(nullValue);
+        h = 31 * h + Long.hashCode(value);
+        h = 31 * h + Objects.hashCode(oversizedValue);
+        this.hash = h;
+    }
+
+    static DividendTransactionKey of(Transaction transaction) {
+        return new DividendTransactionKey(transaction);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DividendTransactionKey)) {
+            return false;
+        }
+        DividendTransactionKey that = (DividendTransactionKey) o;
+        return hash == that.hash
+                && epochDay == that.epochDay
+                && nullValue == that.nullValue
+                && value == that.value
+                && Objects.equals(symbol, that.symbol)
+                && Objects.equals(oversizedValue, that.oversizedValue);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
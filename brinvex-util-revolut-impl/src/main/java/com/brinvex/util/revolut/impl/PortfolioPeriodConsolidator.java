@@ -0,0 +1,622 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl;
+
+import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import com.brinvex.util.revolut.api.service.exception.InvalidDataException;
+import com.brinvex.util.revolut.api.service.exception.InvalidStatementException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import static java.math.BigDecimal.ZERO;
+import static java.util.Comparator.comparing;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Sorts, deduplicates and merges the transactions of portfolio periods of one account.
+ * <p>
+ * Periods must be added in the order of their period start. The transactions of every period form a run sorted by date
+ * and the runs are merged by a k-way merge when flushed. Duplicates always share the same day, so deduplication
+ * and merging of dividends is done for one day of the merge frontier at a time.
+ * Statement timestamps are in GMT, so the days of transactions follow their date order.
+ * <p>
+ * Transactions are kept only until they are flushed, so a caller which flushes everything older than the period
+ * being added holds no more than the transactions of the deduplication window in memory.
+ * Flushed transactions are emitted in date order, transactions with equal dates in the order they were added,
+ * which is exactly the order a single flush after all periods would produce.
+ * A duplicate keeps the position of its first occurrence and the content of its last one.
+ * <p>
+ * Optionally, the transactions are partitioned by symbol and every partition is consolidated in a fork-join task.
+ * Identity keys and dividend pairing both include the symbol, so no duplicates span partitions
+ * and the merged partitions are identical to the sequential result.
+ */
+@SuppressWarnings("DuplicatedCode")
+class PortfolioPeriodConsolidator {
+
+    private static final Comparator<Transaction> DATE_COMPARATOR = comparing(Transaction::getDate);
+
+    /**
+     * Order of the emitted transactions: date, then the period and position of the transaction
+     * which first added the emitted identity.
+     */
+    private static final Comparator<DayEntry> ENTRY_COMPARATOR = (e1, e2) -> {
+        int c = e1.transaction.getDate().compareTo(e2.transaction.getDate());
+        if (c != 0) {
+            return c;
+        }
+        c = Integer.compare(e1.periodIndex, e2.periodIndex);
+        return c != 0 ? c : Integer.compare(e1.position, e2.position);
+    };
+
+    private final Set<String> accountNumbers = new LinkedHashSet<>();
+
+    private final Set<String> accountNames = new LinkedHashSet<>();
+
+    /**
+     * Merge frontier, ordered by the date of the current transaction of each run and then by the order of the periods.
+     */
+    private final PriorityQueue<Run> runs = new PriorityQueue<>(
+            comparing((Run run) -> run.current().getDate()).thenComparingInt(run -> run.periodIndex));
+
+    private final Map<LocalDate, PortfolioBreakdown> breakdowns = new LinkedHashMap<>();
+
+    /**
+     * Null for the sequential consolidation.
+     */
+    private final ForkJoinPool partitionPool;
+
+    private final Map<String, Partition> partitions = new HashMap<>();
+
+    private int periodCount;
+
+    private LocalDate periodFrom;
+
+    private LocalDate periodTo;
+
+    /**
+     * Transactions older than this were already flushed, so they can not be deduplicated any more.
+     */
+    private ZonedDateTime flushedBefore;
+
+    /**
+     * End of the continued consolidated period, see {@link #addConsolidated(PortfolioPeriod, List)}.
+     */
+    private LocalDate consolidatedPeriodTo;
+
+    public PortfolioPeriodConsolidator() {
+        this(null);
+    }
+
+    /**
+     * @param partitionPool pool consolidating the partitions of transactions with the same symbol in parallel,
+     *                      or null for the sequential consolidation
+     */
+    public PortfolioPeriodConsolidator(ForkJoinPool partitionPool) {
+        this.partitionPool = partitionPool;
+    }
+
+    /**
+     * Continues a previous consolidation, so that adding the periods following it gives the same result
+     * as consolidating all the periods again. Must be called before any other period is added
+     * and the added periods must start after the consolidated period.
+     * <p>
+     * The given transactions are not merged or re-derived again, they only take part in the deduplication.
+     * Transactions of the consolidated period which can not have duplicates in the added periods
+     * may be left out and prepended to the flushed transactions by the caller.
+     *
+     * @param transactions consolidated transactions which may have duplicates in the added periods, in date order
+     */
+    public void addConsolidated(PortfolioPeriod consolidatedPeriod, List<Transaction> transactions) {
+        if (periodCount != 0) {
+            throw new IllegalStateException("The consolidated period must be added first");
+        }
+        accountNumbers.addAll(Arrays.asList(consolidatedPeriod.getAccountNumber().split(",")));
+        accountNames.addAll(Arrays.asList(consolidatedPeriod.getAccountName().split(",")));
+        periodFrom = consolidatedPeriod.getPeriodFrom();
+        periodTo = consolidatedPeriod.getPeriodTo();
+        consolidatedPeriodTo = periodTo;
+
+        Map<LocalDate, PortfolioBreakdown> breakdownSnapshots = consolidatedPeriod.getPortfolioBreakdownSnapshots();
+        if (breakdownSnapshots != null) {
+            breakdowns.putAll(breakdownSnapshots);
+        }
+
+        int periodIndex = periodCount++;
+        int n = transactions.size();
+        if (n == 0) {
+            return;
+        }
+        if (partitionPool == null) {
+            int[] positions = new int[n];
+            Arrays.setAll(positions, i -> i);
+            runs.add(new Run(periodIndex, transactions, positions));
+            return;
+        }
+        Map<String, PartitionTransactions> consolidatedPartitions = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Transaction tran = transactions.get(i);
+            consolidatedPartitions.computeIfAbsent(tran.getSymbol(), symbol -> new PartitionTransactions(periodIndex)).add(tran, i);
+        }
+        consolidatedPartitions.forEach((symbol, partitionTransactions) ->
+                partitions.computeIfAbsent(symbol, k -> new Partition()).consolidator.runs.add(
+                        new Run(periodIndex, partitionTransactions.transactions, partitionTransactions.positions)));
+    }
+
+    public void add(PortfolioPeriod portfolioPeriod) {
+        String accountNumber = portfolioPeriod.getAccountNumber();
+        String accountName = portfolioPeriod.getAccountName();
+        accountNumbers.add(accountNumber);
+        accountNames.add(accountName);
+
+        LocalDate periodFrom = portfolioPeriod.getPeriodFrom();
+        LocalDate periodTo = portfolioPeriod.getPeriodTo();
+        if (this.periodFrom == null) {
+            this.periodFrom = periodFrom;
+            this.periodTo = periodTo;
+        } else if (periodFrom.isBefore(this.periodFrom)) {
+            throw new IllegalArgumentException(String.format(
+                    "Periods must be added in order, periodFrom=%s, previous periodFrom=%s", periodFrom, this.periodFrom));
+        }
+        if (consolidatedPeriodTo != null && !periodFrom.isAfter(consolidatedPeriodTo)) {
+            throw new IllegalArgumentException(String.format(
+                    "Periods following a consolidated period must start after it, periodFrom=%s, consolidated periodTo=%s",
+                    periodFrom, consolidatedPeriodTo));
+        }
+
+        LocalDate nextPeriodFrom = this.periodTo.plusDays(1);
+        if (nextPeriodFrom.isBefore(periodFrom)) {
+            throw new InvalidStatementException(String.format(
+                    "accountNumber=%s, accountName='%s', missingPeriod='%s - %s'",
+                    accountNumber, accountName, nextPeriodFrom, periodFrom.minusDays(1)));
+        }
+        if (periodTo.isAfter(this.periodTo)) {
+            this.periodTo = periodTo;
+        }
+
+        Map<LocalDate, PortfolioBreakdown> breakdownSnapshots = portfolioPeriod.getPortfolioBreakdownSnapshots();
+        if (breakdownSnapshots != null) {
+            breakdowns.putAll(breakdownSnapshots);
+        }
+
+        int periodIndex = periodCount++;
+        List<Transaction> periodTransactions = portfolioPeriod.getTransactions();
+        if (periodTransactions == null || periodTransactions.isEmpty()) {
+            return;
+        }
+        if (partitionPool == null) {
+            addTransactions(periodIndex, periodTransactions, null);
+            return;
+        }
+        Map<String, PartitionTransactions> periodPartitions = new HashMap<>();
+        for (int i = 0, n = periodTransactions.size(); i < n; i++) {
+            Transaction tran = periodTransactions.get(i);
+            checkNotFlushed(tran);
+            periodPartitions.computeIfAbsent(tran.getSymbol(), symbol -> new PartitionTransactions(periodIndex)).add(tran, i);
+        }
+        periodPartitions.forEach((symbol, partitionTransactions) ->
+                partitions.computeIfAbsent(symbol, k -> new Partition()).pending.add(partitionTransactions));
+    }
+
+    /**
+     * Merges the adjacent dividends, re-derives the trade prices and adds the transactions as a new run.
+     *
+     * @param positions original positions of the transactions in their period, null if they are the whole period
+     */
+    private void addTransactions(int periodIndex, List<Transaction> periodTransactions, int[] positions) {
+        int n = periodTransactions.size();
+        List<Transaction> runTransactions = new ArrayList<>(n);
+        int[] runPositions = new int[n];
+        for (int i = 0; i < n; i++) {
+            Transaction tran = periodTransactions.get(i);
+            int position = positions == null ? i : positions[i];
+            //Only transactions adjacent in the original period are merged
+            Transaction nextTran = i == n - 1 || (positions != null && positions[i + 1] != position + 1)
+                    ? null : periodTransactions.get(i + 1);
+
+            checkNotFlushed(tran);
+
+            TransactionType tranType = tran.getType();
+            if (tranType.equals(TransactionType.DIVIDEND)) {
+                if (nextTran != null
+                        && nextTran.getType().equals(TransactionType.DIVIDEND)
+                        && nextTran.getSymbol().equals(tran.getSymbol())
+                        && nextTran.getDate().equals(tran.getDate())
+                        && Objects.equals(nextTran.getIsin(), tran.getIsin())
+                        && Objects.equals(nextTran.getSecurityName(), tran.getSecurityName())
+                        && Objects.equals(nextTran.getCountry(), tran.getCountry())
+                        && Objects.equals(nextTran.getCurrency(), tran.getCurrency())
+                ) {
+                    tran.setGrossAmount(tran.getGrossAmount().add(nextTran.getGrossAmount()));
+                    tran.setWithholdingTax(tran.getWithholdingTax().add(nextTran.getWithholdingTax()));
+                    tran.setValue(tran.getValue().add(nextTran.getValue()));
+                    if (tran.getFees() != null || nextTran.getFees() != null) {
+                        throw new IllegalStateException();
+                    }
+                    if (tran.getCommission() != null || nextTran.getCommission() != null) {
+                        throw new IllegalStateException();
+                    }
+                    i++;
+                }
+            } else if (tranType.equals(TransactionType.TRADE_MARKET)) {
+                TransactionSide side = tran.getSide();
+                BigDecimal quantity = tran.getQuantity();
+                BigDecimal fees = ofNullable(tran.getFees()).orElse(ZERO);
+                BigDecimal commission = ofNullable(tran.getCommission()).orElse(ZERO);
+                if (fees.compareTo(ZERO) < 0) {
+                    throw new InvalidDataException(String.format("Commission can not be negative: %s", tran));
+                }
+                if (commission.compareTo(ZERO) < 0) {
+                    throw new InvalidDataException(String.format("Fees can not be negative: %s", tran));
+                }
+                BigDecimal feesAndCommission = fees.add(commission);
+
+                BigDecimal tradedValue;
+                if (side == TransactionSide.BUY) {
+                    tradedValue = tran.getValue().subtract(feesAndCommission);
+                } else if (side == TransactionSide.SELL) {
+                    tradedValue = tran.getValue().add(feesAndCommission);
+                } else {
+                    throw new AssertionError(side);
+                }
+                BigDecimal tradedPrice = tradedValue.divide(quantity, 8, RoundingMode.HALF_UP);
+
+                BigDecimal declaredPrice = tran.getPrice();
+                BigDecimal delta = tradedPrice.subtract(declaredPrice).abs();
+                if (delta.compareTo(new BigDecimal("0.005")) > 0) {
+                    throw new InvalidDataException(String.format(
+                            "Suspicious delta=%s calculated from price=%s, quantity=%s, fees=%s, commission=%s, %s",
+                            delta, declaredPrice, quantity, fees, commission, tran));
+                }
+                tran.setPrice(tradedPrice);
+            }
+
+            runPositions[runTransactions.size()] = position;
+            runTransactions.add(tran);
+        }
+        runs.add(new Run(periodIndex, runTransactions, runPositions));
+    }
+
+    private void checkNotFlushed(Transaction tran) {
+        if (flushedBefore != null && tran.getDate().isBefore(flushedBefore)) {
+            throw new IllegalStateException(String.format(
+                    "Transaction is older than the already flushed transactions, flushedBefore=%s, %s", flushedBefore, tran));
+        }
+    }
+
+    /**
+     * Emits and forgets all transactions dated before the start of the given day (GMT).
+     * Adding a transaction dated before that afterward fails.
+     */
+    public void flush(LocalDate before, Consumer<Transaction> sink) {
+        ZonedDateTime flushBefore = before.atStartOfDay(ZoneOffset.UTC);
+        if (flushedBefore == null || flushBefore.isAfter(flushedBefore)) {
+            flushedBefore = flushBefore;
+        }
+        flush(flushBefore, sink);
+    }
+
+    /**
+     * Emits all remaining transactions.
+     */
+    public void flush(Consumer<Transaction> sink) {
+        flush((ZonedDateTime) null, sink);
+    }
+
+    private void flush(ZonedDateTime before, Consumer<Transaction> sink) {
+        if (partitionPool == null) {
+            merge(before, dayEntry -> sink.accept(dayEntry.transaction));
+        } else {
+            flushPartitions(before, sink);
+        }
+    }
+
+    /**
+     * Consolidates every partition in a fork-join task and merges their outputs, which are already in the emitting order.
+     */
+    private void flushPartitions(ZonedDateTime before, Consumer<Transaction> sink) {
+        List<ForkJoinTask<List<DayEntry>>> tasks = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions.values()) {
+            tasks.add(ForkJoinTask.adapt(() -> partition.flush(before)));
+        }
+        partitionPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        partitions.values().removeIf(Partition::isEmpty);
+
+        PriorityQueue<PartitionOutput> outputs = new PriorityQueue<>(
+                comparing(PartitionOutput::current, ENTRY_COMPARATOR));
+        for (ForkJoinTask<List<DayEntry>> task : tasks) {
+            List<DayEntry> entries = task.join();
+            if (!entries.isEmpty()) {
+                outputs.add(new PartitionOutput(entries));
+            }
+        }
+        while (!outputs.isEmpty()) {
+            PartitionOutput output = outputs.poll();
+            sink.accept(output.current().transaction);
+            if (output.advance()) {
+                outputs.add(output);
+            }
+        }
+    }
+
+    /**
+     * Pops the transactions from the merge frontier in date order and emits them one day at a time.
+     */
+    private void merge(ZonedDateTime before, Consumer<DayEntry> sink) {
+        List<DayEntry> dayEntries = new ArrayList<>();
+        LocalDate day = null;
+        while (!runs.isEmpty()) {
+            Run run = runs.peek();
+            Transaction tran = run.current();
+            ZonedDateTime date = tran.getDate();
+            if (before != null && !date.isBefore(before)) {
+                break;
+            }
+            LocalDate tranDay = date.toLocalDate();
+            if (!tranDay.equals(day)) {
+                emitDay(dayEntries, sink);
+                dayEntries.clear();
+                day = tranDay;
+            }
+            dayEntries.add(new DayEntry(tran, run.periodIndex, run.position()));
+            runs.poll();
+            if (run.advance()) {
+                runs.add(run);
+            }
+        }
+        emitDay(dayEntries, sink);
+    }
+
+    /**
+     * Deduplicates the transactions of one day in the order they were added and emits them in date order.
+     */
+    private void emitDay(List<DayEntry> dayEntries, Consumer<DayEntry> sink) {
+        int size = dayEntries.size();
+        if (size == 0) {
+            return;
+        }
+        if (size == 1) {
+            sink.accept(dayEntries.get(0));
+            return;
+        }
+        dayEntries.sort(Comparator.<DayEntry>comparingInt(e -> e.periodIndex).thenComparingInt(e -> e.position));
+
+        Map<TransactionKey, DayEntry> transactions = new LinkedHashMap<>();
+        Map<DividendTransactionKey, Transaction> dividendTransactions = null;
+        for (DayEntry dayEntry : dayEntries) {
+            Transaction tran = dayEntry.transaction;
+            if (tran.getType().equals(TransactionType.DIVIDEND)) {
+                if (dividendTransactions == null) {
+                    dividendTransactions = new HashMap<>();
+                }
+                DividendTransactionKey divTranKey = DividendTransactionKey.of(tran);
+                Transaction oldDivTran = dividendTransactions.get(divTranKey);
+                if (oldDivTran != null) {
+                    transactions.remove(TransactionKey.of(oldDivTran));
+                    if (tran.getDate().toLocalTime().equals(LocalTime.MIN)) {
+                        tran.setDate(oldDivTran.getDate());
+                    }
+                    tran.setSecurityName(coalesce(tran.getSecurityName(), oldDivTran.getSecurityName()));
+                    tran.setIsin(coalesce(tran.getIsin(), oldDivTran.getIsin()));
+                    tran.setCountry(coalesce(tran.getCountry(), oldDivTran.getCountry()));
+                    tran.setCurrency(coalesce(tran.getCurrency(), oldDivTran.getCurrency()));
+                    tran.setGrossAmount(coalesce(tran.getGrossAmount(), oldDivTran.getGrossAmount()));
+                    tran.setWithholdingTax(coalesce(tran.getWithholdingTax(), oldDivTran.getWithholdingTax()));
+                    tran.setValue(coalesce(tran.getValue(), oldDivTran.getValue()));
+                    tran.setFees(coalesce(tran.getFees(), oldDivTran.getFees()));
+                    tran.setCommission(coalesce(tran.getCommission(), oldDivTran.getCommission()));
+                }
+                dividendTransactions.put(divTranKey, tran);
+            }
+            //A duplicate keeps the position of the first occurrence
+            TransactionKey tranKey = TransactionKey.of(tran);
+            DayEntry oldDayEntry = transactions.get(tranKey);
+            transactions.put(tranKey, oldDayEntry == null
+                    ? dayEntry : new DayEntry(tran, oldDayEntry.periodIndex, oldDayEntry.position));
+        }
+        //Insertion order equals the order of periods and positions, so this is a stable sort by date
+        List<DayEntry> dayTransactions = new ArrayList<>(transactions.values());
+        dayTransactions.sort(ENTRY_COMPARATOR);
+        dayTransactions.forEach(sink);
+    }
+
+    /**
+     * Returns the consolidated period without transactions.
+     */
+    public PortfolioPeriod toPortfolioPeriod() {
+        PortfolioPeriod result = new PortfolioPeriod();
+        result.setPeriodFrom(periodFrom);
+        result.setPeriodTo(periodTo);
+        result.setAccountNumber(String.join(",", accountNumbers));
+        result.setAccountName(String.join(",", accountNames));
+        result.setPortfolioBreakdownSnapshots(new TreeMap<>(breakdowns));
+        return result;
+    }
+
+    private <T> T coalesce(T object1, T object2) {
+        return object1 != null ? object1 : object2;
+    }
+
+    /**
+     * Transactions of one period sorted by date, transactions with equal dates in their original order.
+     */
+    private static class Run {
+
+        private final int periodIndex;
+
+        private final Transaction[] transactions;
+
+        /**
+         * Original positions of the sorted transactions in their period.
+         */
+        private final int[] positions;
+
+        private int cursor;
+
+        Run(int periodIndex, List<Transaction> runTransactions, int[] runPositions) {
+            this.periodIndex = periodIndex;
+            int n = runTransactions.size();
+            boolean sorted = true;
+            for (int i = 1; i < n && sorted; i++) {
+                sorted = DATE_COMPARATOR.compare(runTransactions.get(i - 1), runTransactions.get(i)) <= 0;
+            }
+            if (sorted) {
+                this.transactions = runTransactions.toArray(new Transaction[0]);
+                this.positions = runPositions;
+            } else {
+                //Stable sort keeps the original order of transactions with equal dates
+                Integer[] order = new Integer[n];
+                Arrays.setAll(order, i -> i);
+                Arrays.sort(order, comparing((Integer i) -> runTransactions.get(i).getDate()));
+                this.transactions = new Transaction[n];
+                this.positions = new int[n];
+                for (int i = 0; i < n; i++) {
+                    this.transactions[i] = runTransactions.get(order[i]);
+                    this.positions[i] = runPositions[order[i]];
+                }
+            }
+        }
+
+        Transaction current() {
+            return transactions[cursor];
+        }
+
+        int position() {
+            return positions[cursor];
+        }
+
+        /**
+         * @return false if the run is exhausted
+         */
+        boolean advance() {
+            transactions[cursor] = null;
+            cursor++;
+            return cursor < transactions.length;
+        }
+    }
+
+    private static class DayEntry {
+
+        private final Transaction transaction;
+
+        private final int periodIndex;
+
+        private final int position;
+
+        DayEntry(Transaction transaction, int periodIndex, int position) {
+            this.transaction = transaction;
+            this.periodIndex = periodIndex;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Transactions of one period with the same symbol, with their positions in the period.
+     */
+    private static class PartitionTransactions {
+
+        private final int periodIndex;
+
+        private final List<Transaction> transactions = new ArrayList<>();
+
+        private int[] positions = new int[8];
+
+        PartitionTransactions(int periodIndex) {
+            this.periodIndex = periodIndex;
+        }
+
+        void add(Transaction transaction, int position) {
+            int size = transactions.size();
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size] = position;
+            transactions.add(transaction);
+        }
+    }
+
+    /**
+     * Sequential consolidation of the transactions with the same symbol.
+     * Added periods are only queued, the expensive work is done by {@link #flush(ZonedDateTime)} in a fork-join task.
+     */
+    private static class Partition {
+
+        private final PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator();
+
+        private final List<PartitionTransactions> pending = new ArrayList<>();
+
+        List<DayEntry> flush(ZonedDateTime before) {
+            for (PartitionTransactions partitionTransactions : pending) {
+                consolidator.addTransactions(
+                        partitionTransactions.periodIndex, partitionTransactions.transactions, partitionTransactions.positions);
+            }
+            pending.clear();
+            List<DayEntry> entries = new ArrayList<>();
+            consolidator.merge(before, entries::add);
+            return entries;
+        }
+
+        boolean isEmpty() {
+            return pending.isEmpty() && consolidator.runs.isEmpty();
+        }
+    }
+
+    private static class PartitionOutput {
+
+        private final List<DayEntry> entries;
+
+        private int cursor;
+
+        PartitionOutput(List<DayEntry> entries) {
+            this.entries = entries;
+        }
+
+        DayEntry current() {
+            return entries.get(cursor);
+        }
+
+        /**
+         * @return false if the output is exhausted
+         */
+        boolean advance() {
+            cursor++;
+            return cursor < entries.size();
+        }
+    }
+}
@@ -15,42 +15,54 @@
  */
 package com.brinvex.util.revolut.impl;
 
+import com.brinvex.util.revolut.api.model.AccountPortfolio;
+import com.brinvex.util.revolut.api.model.Holding;
 import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
 import com.brinvex.util.revolut.api.model.PortfolioPeriod;
 import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.StatementInfo;
 import com.brinvex.util.revolut.api.model.Transaction;
-import com.brinvex.util.revolut.api.model.TransactionSide;
-import com.brinvex.util.revolut.api.model.TransactionType;
 import com.brinvex.util.revolut.api.service.RevolutService;
-import com.brinvex.util.revolut.api.service.exception.InvalidDataException;
 import com.brinvex.util.revolut.api.service.exception.InvalidStatementException;
 import com.brinvex.util.revolut.api.service.exception.RevolutServiceException;
+import com.brinvex.util.revolut.impl.cache.ParsedStatementCache;
 import com.brinvex.util.revolut.impl.parser.AccountStatementParser;
 import com.brinvex.util.revolut.impl.parser.ProfitAndLossStatementParser;
+import com.brinvex.util.revolut.impl.parser.StatementInfoParser;
+import com.brinvex.util.revolut.impl.parser.SymbolTable;
+import com.brinvex.util.revolut.impl.pdfreader.CachingPdfReader;
 import com.brinvex.util.revolut.impl.pdfreader.PdfReader;
+import com.brinvex.util.revolut.impl.pdfreader.PdfText;
+import com.brinvex.util.revolut.impl.pdfreader.PipelinedPdfReader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static java.math.BigDecimal.ZERO;
 import static java.util.Collections.emptyList;
 import static java.util.Comparator.comparing;
 import static java.util.Optional.ofNullable;
@@ -58,23 +70,260 @@ import static java.util.Optional.ofNullable;
 @SuppressWarnings("DuplicatedCode")
 public class RevolutServiceImpl implements RevolutService {
 
-    private final PdfReader pdfReader = new PdfReader();
+    /**
+     * A statement may contain transactions dated shortly before its period, e.g. because the period is given
+     * in local time while transactions are in GMT. Transactions this much older than the period of the statement
+     * being processed are considered final by the streaming consolidation.
+     */
+    private static final int DEDUPLICATION_WINDOW_DAYS = 7;
 
-    private final AccountStatementParser accountStatementParser = new AccountStatementParser();
+    private final PdfReader pdfReader;
 
-    private final ProfitAndLossStatementParser profitAndLossStatementParser = new ProfitAndLossStatementParser();
+    private final ForkJoinPool consolidationPool;
+
+    private final ParsedStatementCache parsedStatementCache;
+
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    private final AccountStatementParser accountStatementParser = new AccountStatementParser(symbolTable);
+
+    private final ProfitAndLossStatementParser profitAndLossStatementParser = new ProfitAndLossStatementParser(symbolTable);
+
+    private final StatementInfoParser statementInfoParser = new StatementInfoParser();
+
+    /**
+     * Extracts the text of every statement with a plain {@link PdfReader}, nothing is cached.
+     */
+    public RevolutServiceImpl() {
+        this(new PdfReader());
+    }
+
+    /**
+     * Allows to configure the pdf text extraction, e.g. an opt-in {@link CachingPdfReader}
+     * with an in-memory and an on-disk tier
+     * or a {@link PipelinedPdfReader} extracting pages on another thread while the statement is being parsed.
+     */
+    public RevolutServiceImpl(PdfReader pdfReader) {
+        this(pdfReader, null);
+    }
+
+    /**
+     * @param consolidationPool if not null, the parsed transactions are partitioned by symbol
+     *                          and the partitions are consolidated in parallel on this pool;
+     *                          the result is identical to the sequential consolidation
+     */
+    public RevolutServiceImpl(PdfReader pdfReader, ForkJoinPool consolidationPool) {
+        this(pdfReader, consolidationPool, null);
+    }
+
+    /**
+     * @param parsedStatementCache if not null, the parsed content of every statement is cached,
+     *                             so unchanged statements are neither extracted nor parsed again
+     */
+    public RevolutServiceImpl(PdfReader pdfReader, ForkJoinPool consolidationPool, ParsedStatementCache parsedStatementCache) {
+        this.pdfReader = Objects.requireNonNull(pdfReader);
+        this.consolidationPool = consolidationPool;
+        this.parsedStatementCache = parsedStatementCache;
+    }
+
+    /**
+     * @return dictionary of the symbols, security names, ISINs and countries of the statements processed so far,
+     * including the ones read from the {@link ParsedStatementCache}; their values are its canonical instances
+     * unless the table was full when they were processed. It can be {@link SymbolTable#clear() cleared} between runs.
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
 
     @Override
     public PortfolioPeriod processStatements(Stream<Supplier<InputStream>> statementInputStreams) {
         List<PortfolioPeriod> periods = statementInputStreams
-                .map(inputStreamSupplier -> {
-                    try (InputStream is = inputStreamSupplier.get()) {
-                        return parseStatement(is);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
+                .map(this::parseStatement)
+                .collect(Collectors.toList());
+        return consolidateStatements(periods);
+    }
+
+    @Override
+    public PortfolioPeriod processStatements(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Executor executor,
+            int maxStatementsInFlight
+    ) {
+        Objects.requireNonNull(executor);
+        if (maxStatementsInFlight < 1) {
+            throw new IllegalArgumentException(String.format("maxStatementsInFlight must be positive: %s", maxStatementsInFlight));
+        }
+        Semaphore inFlightPermits = new Semaphore(maxStatementsInFlight);
+        List<CompletableFuture<PortfolioPeriod>> futures = new ArrayList<>();
+        statementInputStreams.forEachOrdered(inputStreamSupplier -> {
+            try {
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a statement slot", e);
+            }
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return parseStatement(inputStreamSupplier);
+                    } finally {
+                        inFlightPermits.release();
                     }
-                })
+                }, executor));
+            } catch (RuntimeException e) {
+                inFlightPermits.release();
+                throw e;
+            }
+        });
+
+        //Futures are joined in submission order so the consolidation input does not depend on completion order
+        List<PortfolioPeriod> periods = new ArrayList<>(futures.size());
+        for (CompletableFuture<PortfolioPeriod> future : futures) {
+            periods.add(join(future));
+        }
+        return consolidateStatements(periods);
+    }
+
+    @Override
+    public PortfolioPeriod processNewStatements(
+            PortfolioPeriod consolidatedPortfolioPeriod,
+            Stream<Supplier<InputStream>> newStatementInputStreams
+    ) {
+        Objects.requireNonNull(consolidatedPortfolioPeriod);
+        List<PortfolioPeriod> periods = newStatementInputStreams
+                .map(this::parseStatement)
                 .collect(Collectors.toList());
+        if (periods.isEmpty()) {
+            return consolidatedPortfolioPeriod;
+        }
+        try {
+            return consolidateAccountPortfolioPeriods(consolidatedPortfolioPeriod, periods);
+        } catch (Exception ex) {
+            if (ex instanceof RevolutServiceException) {
+                throw ex;
+            } else {
+                throw new RuntimeException(String.format("account=%s/%s",
+                        consolidatedPortfolioPeriod.getAccountNumber(), consolidatedPortfolioPeriod.getAccountName()), ex);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, AccountPortfolio> processStatementsByAccount(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Executor executor
+    ) {
+        Objects.requireNonNull(executor);
+        List<Supplier<InputStream>> inputStreamSuppliers = statementInputStreams.collect(Collectors.toList());
+        List<CompletableFuture<StatementInfo>> sniffFutures = new ArrayList<>(inputStreamSuppliers.size());
+        for (Supplier<InputStream> inputStreamSupplier : inputStreamSuppliers) {
+            sniffFutures.add(CompletableFuture.supplyAsync(() -> {
+                try (InputStream is = inputStreamSupplier.get()) {
+                    return sniffStatement(is);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+
+        //Statements of one account keep their given order, so the portfolio values are picked like by getPortfolioValues
+        Map<String, List<Supplier<InputStream>>> accountInputStreamSuppliers = new TreeMap<>();
+        for (int i = 0, n = inputStreamSuppliers.size(); i < n; i++) {
+            StatementInfo statementInfo = join(sniffFutures.get(i));
+            String accountNumber = statementInfo.getAccountNumber();
+            if (accountNumber == null) {
+                throw new InvalidStatementException(String.format("Account number not found: %s", statementInfo));
+            }
+            accountInputStreamSuppliers.computeIfAbsent(accountNumber, k -> new ArrayList<>()).add(inputStreamSuppliers.get(i));
+        }
+
+        Map<String, CompletableFuture<AccountPortfolio>> accountFutures = new TreeMap<>();
+        accountInputStreamSuppliers.forEach((accountNumber, accountSuppliers) -> accountFutures.put(accountNumber,
+                CompletableFuture.supplyAsync(() -> processAccountStatements(accountSuppliers), executor)));
+
+        Map<String, AccountPortfolio> results = new TreeMap<>();
+        accountFutures.forEach((accountNumber, future) -> results.put(accountNumber, join(future)));
+        return results;
+    }
+
+    private AccountPortfolio processAccountStatements(List<Supplier<InputStream>> inputStreamSuppliers) {
+        List<PortfolioPeriod> periods = new ArrayList<>(inputStreamSuppliers.size());
+        TreeMap<LocalDate, PortfolioValue> portfolioValues = new TreeMap<>();
+        for (Supplier<InputStream> inputStreamSupplier : inputStreamSuppliers) {
+            try (InputStream is = inputStreamSupplier.get()) {
+                periods.add(parseStatement(is, portfolioValues));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        PortfolioPeriod portfolioPeriod = consolidateStatements(periods);
+
+        AccountPortfolio result = new AccountPortfolio();
+        result.setAccountNumber(portfolioPeriod.getAccountNumber());
+        result.setAccountName(portfolioPeriod.getAccountName());
+        result.setPortfolioPeriod(portfolioPeriod);
+        result.setPortfolioValues(portfolioValues);
+        return result;
+    }
+
+    @Override
+    public PortfolioPeriod processStatements(
+            Stream<Supplier<InputStream>> statementInputStreams,
+            Consumer<Transaction> transactionSink
+    ) {
+        Objects.requireNonNull(transactionSink);
+        List<Supplier<InputStream>> inputStreamSuppliers = statementInputStreams.collect(Collectors.toList());
+        if (inputStreamSuppliers.isEmpty()) {
+            return null;
+        }
+        List<StatementInfo> statementInfos = new ArrayList<>(inputStreamSuppliers.size());
+        for (Supplier<InputStream> inputStreamSupplier : inputStreamSuppliers) {
+            StatementInfo statementInfo;
+            try (InputStream is = inputStreamSupplier.get()) {
+                statementInfo = sniffStatement(is);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            //Statements are consolidated in period order, so one without a recognizable period can not be placed
+            if (statementInfo.getPeriodFrom() == null || statementInfo.getPeriodTo() == null) {
+                throw new InvalidStatementException(String.format("Period not found in the header of statement %s: %s",
+                        statementInfos.size() + 1, statementInfo));
+            }
+            statementInfos.add(statementInfo);
+        }
+        List<Integer> order = IntStream.range(0, inputStreamSuppliers.size())
+                .boxed()
+                .sorted(comparing((Integer i) -> statementInfos.get(i).getPeriodFrom())
+                        .thenComparing(i -> statementInfos.get(i).getPeriodTo()))
+                .toList();
+
+        PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator(consolidationPool);
+        PortfolioPeriod somePtfPeriod = null;
+        try {
+            for (Integer i : order) {
+                PortfolioPeriod portfolioPeriod = parseStatement(inputStreamSuppliers.get(i));
+                if (somePtfPeriod == null) {
+                    somePtfPeriod = portfolioPeriod;
+                }
+                consolidator.flush(portfolioPeriod.getPeriodFrom().minusDays(DEDUPLICATION_WINDOW_DAYS), transactionSink);
+                consolidator.add(portfolioPeriod);
+            }
+            consolidator.flush(transactionSink);
+        } catch (Exception ex) {
+            if (ex instanceof RevolutServiceException || somePtfPeriod == null) {
+                throw ex;
+            } else {
+                throw new RuntimeException(String.format(
+                        "account=%s/%s", somePtfPeriod.getAccountNumber(), somePtfPeriod.getAccountName()), ex);
+            }
+        }
+
+        PortfolioPeriod result = consolidator.toPortfolioPeriod();
+        result.setTransactions(emptyList());
+        return result;
+    }
+
+    private PortfolioPeriod consolidateStatements(List<PortfolioPeriod> periods) {
         if (periods.isEmpty()) {
             return null;
         }
@@ -113,220 +362,283 @@ public class RevolutServiceImpl implements RevolutService {
         return results;
     }
 
-    private List<PortfolioValue> getPortfolioValues(InputStream inputStream) {
-        List<String> lines = pdfReader.readPdfLines(inputStream);
-
-        String accountStatementTitle = "Account Statement";
-        String profitAndLossTitle1 = "Profit and Loss Statement";
-        String profitAndLossTitle2 = "EUR Profit and Loss Statement";
-
-        String line0 = lines.get(0);
-        String line1 = lines.get(1);
-        List<PortfolioValue> portfolioValues;
-        if (accountStatementTitle.equals(line0) || accountStatementTitle.equals(line1)) {
-            portfolioValues = accountStatementParser.parsePortfolioValueFromTradingAccountStatement(lines);
-        } else if (profitAndLossTitle1.equals(line0) || profitAndLossTitle1.equals(line1)
-                || (profitAndLossTitle2.equals(line0) || profitAndLossTitle2.equals(line1))
-        ) {
-            //no-op
-            portfolioValues = emptyList();
-        } else {
-            throw new IllegalArgumentException(String.format("Could not detect statement type '%s', '%s'", line0, line1));
+    @Override
+    public StatementInfo sniffStatement(InputStream statementInputStream) {
+        try (Stream<? extends CharSequence> lineStream = pdfReader.streamPdfLineViews(statementInputStream)) {
+            return statementInfoParser.parseStatementInfo(lineStream.iterator(), new ArrayList<>());
         }
+    }
 
+    private List<PortfolioValue> getPortfolioValues(InputStream inputStream) {
+        if (parsedStatementCache == null) {
+            return parsePortfolioValues(inputStream);
+        }
+        byte[] statementBytes = readAllBytes(inputStream);
+        String key = parsedStatementCache.key(statementBytes);
+        List<PortfolioValue> portfolioValues = parsedStatementCache.getPortfolioValues(key);
+        if (portfolioValues == null) {
+            portfolioValues = parsePortfolioValues(new ByteArrayInputStream(statementBytes));
+            parsedStatementCache.putPortfolioValues(key, portfolioValues);
+        }
         return portfolioValues;
     }
 
-    private PortfolioPeriod parseStatement(InputStream inputStream) {
+    private List<PortfolioValue> parsePortfolioValues(InputStream inputStream) {
+        //Pages are extracted lazily and the parser stops at the account summary block,
+        //so usually only the first page or two are ever extracted
+        try (Stream<? extends CharSequence> lineStream = pdfReader.streamPdfLineViews(inputStream)) {
+            Iterator<? extends CharSequence> lineIterator = lineStream.iterator();
+            List<CharSequence> headerLines = new ArrayList<>();
+            StatementInfo statementInfo = statementInfoParser.parseStatementInfo(lineIterator, headerLines);
+
+            List<PortfolioValue> portfolioValues;
+            switch (statementInfo.getType()) {
+                case ACCOUNT_STATEMENT: {
+                    portfolioValues = accountStatementParser.parsePortfolioValueFromTradingAccountStatement(concat(headerLines, lineIterator));
+                    break;
+                }
+                case PROFIT_AND_LOSS_STATEMENT: {
+                    //no-op
+                    portfolioValues = emptyList();
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unexpected value: " + statementInfo.getType());
+            }
+            return portfolioValues;
+        }
+    }
+
+    private PortfolioPeriod parseStatement(Supplier<InputStream> inputStreamSupplier) {
+        try (InputStream is = inputStreamSupplier.get()) {
+            return parseStatement(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        List<String> lines = pdfReader.readPdfLines(inputStream);
+    private PortfolioPeriod parseStatement(InputStream inputStream) {
+        if (parsedStatementCache == null) {
+            return parsePortfolioPeriod(inputStream);
+        }
+        byte[] statementBytes = readAllBytes(inputStream);
+        String key = parsedStatementCache.key(statementBytes);
+        PortfolioPeriod portfolioPeriod = parsedStatementCache.getPortfolioPeriod(key);
+        if (portfolioPeriod == null) {
+            portfolioPeriod = parsePortfolioPeriod(new ByteArrayInputStream(statementBytes));
+            parsedStatementCache.putPortfolioPeriod(key, portfolioPeriod);
+        } else {
+            internStrings(portfolioPeriod);
+        }
+        return portfolioPeriod;
+    }
 
-        String accountStatementTitle = "Account Statement";
-        String profitAndLossTitle1 = "Profit and Loss Statement";
-        String profitAndLossTitle2 = "EUR Profit and Loss Statement";
+    private PortfolioPeriod parsePortfolioPeriod(InputStream inputStream) {
+        try (Stream<? extends CharSequence> lineStream = pdfReader.streamPdfLineViews(inputStream)) {
+            Iterator<? extends CharSequence> lineIterator = lineStream.iterator();
+            List<CharSequence> headerLines = new ArrayList<>();
+            StatementInfo statementInfo = statementInfoParser.parseStatementInfo(lineIterator, headerLines);
+
+            PortfolioPeriod portfolioPeriod;
+            switch (statementInfo.getType()) {
+                case ACCOUNT_STATEMENT: {
+                    //Single pass parser consumes the pages as they are extracted
+                    portfolioPeriod = accountStatementParser.parseTradingAccountStatement(concat(headerLines, lineIterator));
+                    break;
+                }
+                case PROFIT_AND_LOSS_STATEMENT: {
+                    List<CharSequence> lines = new ArrayList<>(headerLines);
+                    lineIterator.forEachRemaining(lines::add);
+                    portfolioPeriod = profitAndLossStatementParser.parseProfitAndLossStatement(lines);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unexpected value: " + statementInfo.getType());
+            }
+            return portfolioPeriod;
+        }
+    }
 
-        String line0 = lines.get(0);
-        String line1 = lines.get(1);
+    private PortfolioPeriod parseStatement(InputStream inputStream, Map<LocalDate, PortfolioValue> portfolioValues) {
         PortfolioPeriod portfolioPeriod;
-        if (accountStatementTitle.equals(line0) || accountStatementTitle.equals(line1)) {
-            portfolioPeriod = accountStatementParser.parseTradingAccountStatement(lines);
-        } else if (profitAndLossTitle1.equals(line0) || profitAndLossTitle1.equals(line1)
-                || (profitAndLossTitle2.equals(line0) || profitAndLossTitle2.equals(line1))
-        ) {
-            portfolioPeriod = profitAndLossStatementParser.parseProfitAndLossStatement(lines);
+        List<PortfolioValue> ptfValues;
+        if (parsedStatementCache == null) {
+            ptfValues = new ArrayList<>();
+            portfolioPeriod = parsePortfolioPeriod(inputStream, ptfValues);
         } else {
-            throw new IllegalArgumentException(String.format("Could not detect statement type '%s', '%s'", line0, line1));
+            byte[] statementBytes = readAllBytes(inputStream);
+            String key = parsedStatementCache.key(statementBytes);
+            portfolioPeriod = parsedStatementCache.getPortfolioPeriod(key);
+            ptfValues = parsedStatementCache.getPortfolioValues(key);
+            if (portfolioPeriod == null || ptfValues == null) {
+                ptfValues = new ArrayList<>();
+                portfolioPeriod = parsePortfolioPeriod(new ByteArrayInputStream(statementBytes), ptfValues);
+                parsedStatementCache.putPortfolioPeriod(key, portfolioPeriod);
+                parsedStatementCache.putPortfolioValues(key, ptfValues);
+            } else {
+                internStrings(portfolioPeriod);
+            }
+        }
+        for (PortfolioValue ptfValue : ptfValues) {
+            portfolioValues.putIfAbsent(ptfValue.getDay(), ptfValue);
         }
-
         return portfolioPeriod;
     }
 
-    private PortfolioPeriod consolidateAccountPortfolioPeriods(List<PortfolioPeriod> accountPortfolioPeriods) {
-        accountPortfolioPeriods.sort(comparing(PortfolioPeriod::getPeriodFrom).thenComparing(PortfolioPeriod::getPeriodTo));
+    /**
+     * Extracts the statement only once and parses both its portfolio period and its portfolio values.
+     * The lines are views of one extracted text buffer, see {@link PdfText}.
+     */
+    private PortfolioPeriod parsePortfolioPeriod(InputStream inputStream, List<PortfolioValue> portfolioValues) {
+        List<CharSequence> lines = pdfReader.readPdfText(inputStream).getLines();
+        StatementInfo statementInfo = statementInfoParser.parseStatementInfo(lines.iterator(), new ArrayList<>());
 
-        PortfolioPeriod result = new PortfolioPeriod();
-        Set<String> accountNumbers = new LinkedHashSet<>();
-        Set<String> accountNames = new LinkedHashSet<>();
-        {
-            PortfolioPeriod portfolioPeriod0 = accountPortfolioPeriods.get(0);
-            result.setPeriodFrom(portfolioPeriod0.getPeriodFrom());
-            result.setPeriodTo(portfolioPeriod0.getPeriodTo());
+        PortfolioPeriod portfolioPeriod;
+        switch (statementInfo.getType()) {
+            case ACCOUNT_STATEMENT: {
+                portfolioPeriod = accountStatementParser.parseTradingAccountStatement(lines);
+                portfolioValues.addAll(accountStatementParser.parsePortfolioValueFromTradingAccountStatement(lines));
+                break;
+            }
+            case PROFIT_AND_LOSS_STATEMENT: {
+                portfolioPeriod = profitAndLossStatementParser.parseProfitAndLossStatement(lines);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unexpected value: " + statementInfo.getType());
         }
+        return portfolioPeriod;
+    }
 
-        Map<Object, Transaction> transactions = new LinkedHashMap<>();
-        Map<Object, Transaction> dividendTransactions = new LinkedHashMap<>();
-        Map<LocalDate, PortfolioBreakdown> breakdowns = new LinkedHashMap<>();
+    PortfolioPeriod consolidateAccountPortfolioPeriods(List<PortfolioPeriod> accountPortfolioPeriods) {
+        accountPortfolioPeriods.sort(comparing(PortfolioPeriod::getPeriodFrom).thenComparing(PortfolioPeriod::getPeriodTo));
 
+        PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator(consolidationPool);
         for (PortfolioPeriod portfolioPeriod : accountPortfolioPeriods) {
-            String accountNumber = portfolioPeriod.getAccountNumber();
-            String accountName = portfolioPeriod.getAccountName();
-            accountNumbers.add(accountNumber);
-            accountNames.add(accountName);
-
-            LocalDate periodFrom = portfolioPeriod.getPeriodFrom();
-            LocalDate periodTo = portfolioPeriod.getPeriodTo();
-
-            LocalDate nextPeriodFrom = result.getPeriodTo().plusDays(1);
-            if (nextPeriodFrom.isBefore(periodFrom)) {
-                throw new InvalidStatementException(String.format(
-                        "accountNumber=%s, accountName='%s', missingPeriod='%s - %s'",
-                        accountNumber, accountName, nextPeriodFrom, periodFrom.minusDays(1)));
-            }
-            if (periodTo.isAfter(result.getPeriodTo())) {
-                result.setPeriodTo(periodTo);
-            }
+            consolidator.add(portfolioPeriod);
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        consolidator.flush(transactions::add);
 
-            Map<LocalDate, PortfolioBreakdown> breakdownSnapshots = portfolioPeriod.getPortfolioBreakdownSnapshots();
-            if (breakdownSnapshots != null) {
-                breakdowns.putAll(breakdownSnapshots);
-            }
+        PortfolioPeriod result = consolidator.toPortfolioPeriod();
+        result.setTransactions(transactions);
+        return result;
+    }
 
+    /**
+     * Continues the consolidation of the given consolidated period with new periods.
+     * Duplicates and dividend pairs always share the same day, so only the consolidated transactions dated
+     * on or after the day of the earliest new transaction are replayed, the older ones are taken as they are.
+     */
+    PortfolioPeriod consolidateAccountPortfolioPeriods(
+            PortfolioPeriod consolidatedPortfolioPeriod,
+            List<PortfolioPeriod> newAccountPortfolioPeriods
+    ) {
+        newAccountPortfolioPeriods.sort(comparing(PortfolioPeriod::getPeriodFrom).thenComparing(PortfolioPeriod::getPeriodTo));
+
+        ZonedDateTime replayFrom = null;
+        for (PortfolioPeriod portfolioPeriod : newAccountPortfolioPeriods) {
             List<Transaction> periodTransactions = portfolioPeriod.getTransactions();
             if (periodTransactions != null) {
-                for (int i = 0, n = periodTransactions.size(); i < n; i++) {
-                    Transaction tran = periodTransactions.get(i);
-                    Transaction nextTran = i == n - 1 ? null : periodTransactions.get(i + 1);
-
-                    TransactionType tranType = tran.getType();
-                    if (tranType.equals(TransactionType.DIVIDEND)) {
-                        if (nextTran != null
-                                && nextTran.getType().equals(TransactionType.DIVIDEND)
-                                && nextTran.getSymbol().equals(tran.getSymbol())
-                                && nextTran.getDate().equals(tran.getDate())
-                                && Objects.equals(nextTran.getIsin(), tran.getIsin())
-                                && Objects.equals(nextTran.getSecurityName(), tran.getSecurityName())
-                                && Objects.equals(nextTran.getCountry(), tran.getCountry())
-                                && Objects.equals(nextTran.getCurrency(), tran.getCurrency())
-                        ) {
-                            tran.setGrossAmount(tran.getGrossAmount().add(nextTran.getGrossAmount()));
-                            tran.setWithholdingTax(tran.getWithholdingTax().add(nextTran.getWithholdingTax()));
-                            tran.setValue(tran.getValue().add(nextTran.getValue()));
-                            if (tran.getFees() != null || nextTran.getFees() != null) {
-                                throw new IllegalStateException();
-                            }
-                            if (tran.getCommission() != null || nextTran.getCommission() != null) {
-                                throw new IllegalStateException();
-                            }
-                            i++;
-                        }
-                        Object divTranKey = constructDividendTransactionIdentityKey(tran);
-                        Transaction oldDivTran = dividendTransactions.get(divTranKey);
-                        if (oldDivTran != null) {
-                            transactions.remove(constructTransactionIdentityKey(oldDivTran));
-                            if (tran.getDate().toLocalTime().equals(LocalTime.MIN)) {
-                                tran.setDate(oldDivTran.getDate());
-                            }
-                            tran.setSecurityName(coalesce(tran.getSecurityName(), oldDivTran.getSecurityName()));
-                            tran.setIsin(coalesce(tran.getIsin(), oldDivTran.getIsin()));
-                            tran.setCountry(coalesce(tran.getCountry(), oldDivTran.getCountry()));
-                            tran.setCurrency(coalesce(tran.getCurrency(), oldDivTran.getCurrency()));
-                            tran.setGrossAmount(coalesce(tran.getGrossAmount(), oldDivTran.getGrossAmount()));
-                            tran.setWithholdingTax(coalesce(tran.getWithholdingTax(), oldDivTran.getWithholdingTax()));
-                            tran.setValue(coalesce(tran.getValue(), oldDivTran.getValue()));
-                            tran.setFees(coalesce(tran.getFees(), oldDivTran.getFees()));
-                            tran.setCommission(coalesce(tran.getCommission(), oldDivTran.getCommission()));
-                        }
-                        dividendTransactions.put(divTranKey, tran);
-                    } else if (tranType.equals(TransactionType.TRADE_MARKET)) {
-                        TransactionSide side = tran.getSide();
-                        BigDecimal quantity = tran.getQuantity();
-                        BigDecimal fees = ofNullable(tran.getFees()).orElse(ZERO);
-                        BigDecimal commission = ofNullable(tran.getCommission()).orElse(ZERO);
-                        if (fees.compareTo(ZERO) < 0) {
-                            throw new InvalidDataException(String.format("Commission can not be negative: %s", tran));
-                        }
-                        if (commission.compareTo(ZERO) < 0) {
-                            throw new InvalidDataException(String.format("Fees can not be negative: %s", tran));
-                        }
-                        BigDecimal feesAndCommission = fees.add(commission);
-
-                        BigDecimal tradedValue;
-                        if (side == TransactionSide.BUY) {
-                            tradedValue = tran.getValue().subtract(feesAndCommission);
-                        } else if (side == TransactionSide.SELL) {
-                            tradedValue = tran.getValue().add(feesAndCommission);
-                        } else {
-                            throw new AssertionError(side);
-                        }
-                        BigDecimal tradedPrice = tradedValue.divide(quantity, 8, RoundingMode.HALF_UP);
-
-                        BigDecimal declaredPrice = tran.getPrice();
-                        BigDecimal delta = tradedPrice.subtract(declaredPrice).abs();
-                        if (delta.compareTo(new BigDecimal("0.005")) > 0) {
-                            throw new InvalidDataException(String.format(
-                                    "Suspicious delta=%s calculated from price=%s, quantity=%s, fees=%s, commission=%s, %s",
-                                    delta, declaredPrice, quantity, fees, commission, tran));
-                        }
-                        tran.setPrice(tradedPrice);
+                for (Transaction tran : periodTransactions) {
+                    ZonedDateTime dayStart = tran.getDate().toLocalDate().atStartOfDay(ZoneOffset.UTC);
+                    if (replayFrom == null || dayStart.isBefore(replayFrom)) {
+                        replayFrom = dayStart;
                     }
-
-                    Object tranKey = constructTransactionIdentityKey(tran);
-                    transactions.put(tranKey, tran);
                 }
             }
         }
-        result.setAccountNumber(String.join(",", accountNumbers));
-        result.setAccountName(String.join(",", accountNames));
-        result.setPortfolioBreakdownSnapshots(new TreeMap<>(breakdowns));
+        List<Transaction> consolidatedTransactions = ofNullable(consolidatedPortfolioPeriod.getTransactions()).orElse(emptyList());
+        int replayIdx = consolidatedTransactions.size();
+        if (replayFrom != null) {
+            //Binary search of the first consolidated transaction not before replayFrom
+            int low = 0;
+            int high = replayIdx;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (consolidatedTransactions.get(mid).getDate().isBefore(replayFrom)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            replayIdx = low;
+        }
 
-        result.setTransactions(transactions.values()
-                .stream()
-                .sorted(comparing(Transaction::getDate))
-                .collect(Collectors.toCollection(ArrayList::new))
-        );
+        PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator(consolidationPool);
+        consolidator.addConsolidated(
+                consolidatedPortfolioPeriod, consolidatedTransactions.subList(replayIdx, consolidatedTransactions.size()));
+        for (PortfolioPeriod portfolioPeriod : newAccountPortfolioPeriods) {
+            consolidator.add(portfolioPeriod);
+        }
+        List<Transaction> transactions = new ArrayList<>(consolidatedTransactions.subList(0, replayIdx));
+        consolidator.flush(transactions::add);
 
+        PortfolioPeriod result = consolidator.toPortfolioPeriod();
+        result.setTransactions(transactions);
         return result;
     }
 
-    private Object constructTransactionIdentityKey(Transaction transaction) {
-        return Arrays.asList(
-                transaction.getType(),
-                transaction.getDate(),
-                transaction.getSymbol(),
-                setScale(transaction.getQuantity(), 8),
-                setScale(transaction.getPrice(), 2),
-                transaction.getSide(),
-                setScale(transaction.getValue(), 2),
-                setScale(transaction.getFees(), 2),
-                setScale(transaction.getCommission(), 2)
-        );
+    /**
+     * A decoded cache entry has its own string instances, they are replaced by the canonical ones
+     * the parsers would have produced.
+     */
+    private void internStrings(PortfolioPeriod portfolioPeriod) {
+        List<Transaction> transactions = portfolioPeriod.getTransactions();
+        if (transactions != null) {
+            for (Transaction tran : transactions) {
+                if (tran != null) {
+                    tran.setSymbol(symbolTable.intern(tran.getSymbol()));
+                    tran.setSecurityName(symbolTable.intern(tran.getSecurityName()));
+                    tran.setIsin(symbolTable.intern(tran.getIsin()));
+                    tran.setCountry(symbolTable.intern(tran.getCountry()));
+                }
+            }
+        }
+        Map<LocalDate, PortfolioBreakdown> breakdowns = portfolioPeriod.getPortfolioBreakdownSnapshots();
+        if (breakdowns != null) {
+            for (PortfolioBreakdown breakdown : breakdowns.values()) {
+                if (breakdown != null && breakdown.getHoldings() != null) {
+                    for (Holding holding : breakdown.getHoldings()) {
+                        if (holding != null) {
+                            holding.setSymbol(symbolTable.intern(holding.getSymbol()));
+                            holding.setCompany(symbolTable.intern(holding.getCompany()));
+                            holding.setIsin(symbolTable.intern(holding.getIsin()));
+                        }
+                    }
+                }
+            }
+        }
     }
 
-    private Object constructDividendTransactionIdentityKey(Transaction transaction) {
-        return Arrays.asList(
-                transaction.getDate().toLocalDate(),
-                transaction.getSymbol(),
-                setScale(transaction.getValue(), 2)
-        );
+    private static byte[] readAllBytes(InputStream inputStream) {
+        try {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private BigDecimal setScale(BigDecimal d, int newScale) {
-        return d == null ? null : d.setScale(newScale, RoundingMode.HALF_UP);
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
     }
 
-    private <T> T coalesce(T object1, T object2) {
-        return object1 != null ? object1 : object2;
+    private static Iterator<CharSequence> concat(List<CharSequence> headLines, Iterator<? extends CharSequence> remainingLines) {
+        return Stream.concat(
+                headLines.stream(),
+                StreamSupport.stream(Spliterators.spliteratorUnknownSize(remainingLines, Spliterator.ORDERED), false)
+        ).iterator();
     }
 
-
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl;
+
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Identity of a transaction used to deduplicate transactions of overlapping statements.
+ * Two keys are equal exactly when the lists
+ * {@code [type, date, symbol, quantity(8), price(2), side, value(2), fees(2), commission(2)]}
+ * with the amounts rounded half-up to the given scale would be equal.
+ * <p>
+ * The date is kept as epoch seconds, nanos and zone and the amounts as unscaled longs.
+ * Amounts with more than 18 digits are kept as rounded BigDecimals instead.
+ * Amounts are rounded on the compact long representation of BigDecimal, so no BigInteger is created
+ * for them. The hash is computed once.
+ */
+final class TransactionKey {
+
+    private static final int QUANTITY_SCALE = 8;
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private static final int AMOUNT_COUNT = 5;
+
+    /**
+     * Number of decimal digits which always fit into a long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * Marks an amount kept in {@link #oversizedAmounts}; no amount of at most 18 digits has this unscaled value.
+     */
+    static final long OVERSIZED = Long.MIN_VALUE;
+
+    private final TransactionType type;
+
+    private final long epochSecond;
+
+    private final int nano;
+
+    private final ZoneId zone;
+
+    private final String symbol;
+
+    private final TransactionSide side;
+
+    private final long quantity;
+
+    private final long price;
+
+    private final long value;
+
+    private final long fees;
+
+    private final long commission;
+
+    /**
+     * Bits 0 to 4 are set if quantity, price, value, fees and commission respectively are null.
+     */
+    private final int nullAmounts;
+
+    /**
+     * Rounded quantity, price, value, fees and commission, only if some of them is {@link #OVERSIZED}.
+     */
+    private final BigDecimal[] oversizedAmounts;
+
+    private final int hash;
+
+    private TransactionKey(Transaction transaction) {
+        ZonedDateTime date = transaction.getDate();
+        this.type = transaction.getType();
+        this.epochSecond = date == null ? 0 : date.toEpochSecond();
+        this.nano = date == null ? 0 : date.getNano();
+        this.zone = date == null ? null : date.getZone();
+        this.symbol = transaction.getSymbol();
+        this.side = transaction.getSide();
+
+        BigDecimal rawQuantity = transaction.getQuantity();
+        BigDecimal rawPrice = transaction.getPrice();
+        BigDecimal rawValue = transaction.getValue();
+        BigDecimal rawFees = transaction.getFees();
+        BigDecimal rawCommission = transaction.getCommission();
+        this.quantity = unscaled(rawQuantity, QUANTITY_SCALE);
+        this.price = unscaled(rawPrice, AMOUNT_SCALE);
+        this.value = unscaled(rawValue, AMOUNT_SCALE);
+        this.fees = unscaled(rawFees, AMOUNT_SCALE);
+        this.commission = unscaled(rawCommission, AMOUNT_SCALE);
+        this.nullAmounts = (rawQuantity == null ? 1 : 0)
+                | (rawPrice == null ? 1 << 1 : 0)
+                | (rawValue == null ? 1 << 2 : 0)
+                | (rawFees == null ? 1 << 3 : 0)
+                | (rawCommission == null ? 1 << 4 : 0);
+        if (quantity == OVERSIZED || price == OVERSIZED || value == OVERSIZED || fees == OVERSIZED || commission == OVERSIZED) {
+            BigDecimal[] oversizedAmounts = new BigDecimal[AMOUNT_COUNT];
+            oversizedAmounts[0] = quantity == OVERSIZED ? rawQuantity.setScale(QUANTITY_SCALE, RoundingMode.HALF_UP) : null;
+            oversizedAmounts[1] = price == OVERSIZED ? rawPrice.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP) : null;
+            oversizedAmounts[2] = value == OVERSIZED ? rawValue.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP) : null;
+            oversizedAmounts[3] = fees == OVERSIZED ? rawFees.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP) : null;
+            oversizedAmounts[4] = commission == OVERSIZED ? rawCommission.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP) : null;
+            this.oversizedAmounts = oversizedAmounts;
+        } else {
+            this.oversizedAmounts = null;
+        }
+
+        int h = Objects.hashCode(type);
+        h = 31 * h + Long.hashCode(epochSecond);
+        h = 31 * h + nano;
+        h = 31 * h + Objects.hashCode(zone);
+        h = 31 * h + Objects.hashCode(symbol);
+        h = 31 * h + Objects.hashCode(side);
+        h = 31 * h + Long.hashCode(quantity);
+        h = 31 * h + Long.hashCode(price);
+        h = 31 * h + Long.hashCode(value);
+        h = 31 * h + Long.hashCode(fees);
+        h = 31 * h + Long.hashCode(commission);
+        h = 31 * h + nullAmounts;
+        h = 31 * h + Arrays.hashCode(oversizedAmounts);
+        this.hash = h;
+    }
+
+    /**
+     * Rounds half-up to the given scale, the same as {@code amount.setScale(scale, HALF_UP).unscaledValue()}.
+     * Shifting the decimal point keeps a compact BigDecimal compact, so the result is read without a BigInteger.
+     *
+     * @return the unscaled rounded amount, 0 for null or {@link #OVERSIZED} if it has more than 18 digits
+     */
+    static long unscaled(BigDecimal amount, int scale) {
+        if (amount == null || amount.signum() == 0) {
+            return 0;
+        }
+        int scaleShift = scale - amount.scale();
+        if (scaleShift >= 0 && amount.precision() + scaleShift <= MAX_LONG_DIGITS) {
+            //No rounding, the unscaled value is only multiplied by a power of ten
+            long unscaledValue = amount.scale() == 0 ? amount.longValue() : amount.scaleByPowerOfTen(amount.scale()).longValue();
+            return unscaledValue * POWERS_OF_TEN[scaleShift];
+        }
+        BigDecimal unscaled = amount.scaleByPowerOfTen(scale).setScale(0, RoundingMode.HALF_UP);
+        return unscaled.precision() <= MAX_LONG_DIGITS ? unscaled.longValue() : OVERSIZED;
+    }
+
+    static TransactionKey of(Transaction transaction) {
+        return new TransactionKey(transaction);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransactionKey)) {
+            return false;
+        }
+        TransactionKey that = (TransactionKey) o;
+        return hash == that.hash
+                && epochSecond == that.epochSecond
+                && nano == that.nano
+                && nullAmounts == that.nullAmounts
+                && type == that.type
+                && side == that.side
+                && quantity == that.quantity
+                && price == that.price
+                && value == that.value
+                && fees == that.fees
+                && commission == that.commission
+                && Objects.equals(symbol, that.symbol)
+                && Objects.equals(zone, that.zone)
+                && Arrays.equals(oversizedAmounts, that.oversizedAmounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * Cache storing one file per entry in a directory, bounded by the total size of the files.
+ * Reads refresh the modification time of the entry file and the least recently used files are evicted first.
+ * Entries are written to a temporary file and moved into place, so concurrent readers never see a partial entry.
+ * <p>
+ * The total size is tracked in memory, seeded by one scan of the directory on construction,
+ * so a write scans the directory only if it exceeds the limit. Eviction then goes a bit below the limit,
+ * so that the next scan is needed only after a number of further writes.
+ * The scan also corrects the tracked total if other processes share the directory.
+ */
+public class DiskCache {
+
+    private static final String ENTRY_FILE_SUFFIX = ".bin";
+
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Fraction of the limit the total size is reduced to by eviction.
+     */
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public DiskCache(Path directory, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException(String.format("maxBytes must not be negative: %s", maxBytes));
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            totalBytes.set(scanTotalBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param key a file-name safe key, e.g. a hex digest
+     * @return the stored bytes or null if there is no readable entry for the key; an unreadable entry is removed
+     */
+    public byte[] get(String key) {
+        Path entryPath = entryPath(key);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entryPath);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entryPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            //The entry is only more likely to be evicted
+        }
+        return bytes;
+    }
+
+    /**
+     * Deletes the entry, e.g. one which could not be decoded.
+     * Deleting is best effort: if it fails, the entry is left to be overwritten or evicted later.
+     */
+    public void remove(String key) {
+        Path entryPath = entryPath(key);
+        try {
+            long size = sizeOrZero(entryPath);
+            if (Files.deleteIfExists(entryPath)) {
+                totalBytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            //Best effort, see the javadoc
+        }
+    }
+
+    public void put(String key, byte[] bytes) {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        Path entryPath = entryPath(key);
+        try {
+            Path tmpPath = Files.createTempFile(directory, key, TMP_FILE_SUFFIX);
+            try {
+                Files.write(tmpPath, bytes);
+                long replacedSize = sizeOrZero(entryPath);
+                try {
+                    Files.move(tmpPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmpPath, entryPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                totalBytes.addAndGet(bytes.length - replacedSize);
+            } finally {
+                Files.deleteIfExists(tmpPath);
+            }
+            if (totalBytes.get() > maxBytes) {
+                evict(entryPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void evict(Path justWrittenPath) throws IOException {
+        if (totalBytes.get() <= maxBytes) {
+            //Evicted by a concurrent put
+            return;
+        }
+        List<Path> entryPaths = new ArrayList<>();
+        List<BasicFileAttributes> entryAttributes = new ArrayList<>();
+        long scannedBytes = 0;
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + ENTRY_FILE_SUFFIX)) {
+            for (Path path : paths) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                entryPaths.add(path);
+                entryAttributes.add(attributes);
+                scannedBytes += attributes.size();
+            }
+        }
+        long evictedBytes = 0;
+        long targetBytes = (long) (maxBytes * EVICTION_TARGET);
+        if (scannedBytes > maxBytes) {
+            List<Integer> order = new ArrayList<>(entryPaths.size());
+            for (int i = 0; i < entryPaths.size(); i++) {
+                order.add(i);
+            }
+            order.sort(comparing(i -> entryAttributes.get(i).lastModifiedTime()));
+            for (int i : order) {
+                if (scannedBytes - evictedBytes <= targetBytes) {
+                    break;
+                }
+                Path path = entryPaths.get(i);
+                if (path.equals(justWrittenPath)) {
+                    continue;
+                }
+                if (Files.deleteIfExists(path)) {
+                    evictedBytes += entryAttributes.get(i).size();
+                }
+            }
+        }
+        //Resynchronized with the directory, which may have been changed by another process
+        totalBytes.set(scannedBytes - evictedBytes);
+    }
+
+    private long scanTotalBytes() throws IOException {
+        long scannedBytes = 0;
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + ENTRY_FILE_SUFFIX)) {
+            for (Path path : paths) {
+                scannedBytes += sizeOrZero(path);
+            }
+        }
+        return scannedBytes;
+    }
+
+    private static long sizeOrZero(Path path) throws IOException {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_FILE_SUFFIX);
+    }
+}
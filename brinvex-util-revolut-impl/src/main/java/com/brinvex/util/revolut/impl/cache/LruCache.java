@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe in-memory cache bounded by the total weight of its values.
+ * The least recently used entries are evicted first.
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ToLongFunction<V> weigher;
+
+    private final long maxWeight;
+
+    private long weight;
+
+    public LruCache(long maxWeight, ToLongFunction<V> weigher) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException(String.format("maxWeight must not be negative: %s", maxWeight));
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            return;
+        }
+        V oldValue = entries.put(key, value);
+        if (oldValue != null) {
+            weight -= weigher.applyAsLong(oldValue);
+        }
+        weight += valueWeight;
+
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            weight -= weigher.applyAsLong(eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.cache;
+
+import com.brinvex.util.revolut.api.codec.PortfolioBinaryReader;
+import com.brinvex.util.revolut.api.codec.PortfolioBinaryWriter;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.PortfolioValue;
+import org.apache.pdfbox.util.Version;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * On-disk cache of the parsed content of single statements, so that an unchanged statement is neither
+ * extracted nor parsed again. Entries are keyed by SHA-256 digest of the statement bytes
+ * together with the format, parser, library and PDFBox versions, so a new version of any of them never reads stale entries.
+ * An entry which can not be decoded is deleted and treated as a miss.
+ * Every read returns a freshly decoded copy which the caller is free to modify.
+ */
+public class ParsedStatementCache {
+
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Must be incremented whenever the parsers may produce a different result for the same statement.
+     * Unlike the library version, which is not known in IDE and other unpackaged builds, it is always part of the key.
+     */
+    private static final int PARSER_VERSION = 1;
+
+    private static final String PORTFOLIO_PERIOD_KEY_SUFFIX = "-p";
+
+    private static final String PORTFOLIO_VALUES_KEY_SUFFIX = "-v";
+
+    private static class LazyHolder {
+
+        private static final byte[] VERSION_BYTES = String.format("%s/%s/%s/%s",
+                        FORMAT_VERSION,
+                        PARSER_VERSION,
+                        ParsedStatementCache.class.getPackage().getImplementationVersion(),
+                        Version.getVersion())
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private final DiskCache diskCache;
+
+    /**
+     * @param directory directory of the cache files
+     * @param maxBytes  maximum total size of the cache files
+     */
+    public ParsedStatementCache(Path directory, long maxBytes) {
+        this.diskCache = new DiskCache(directory, maxBytes);
+    }
+
+    public String key(byte[] statementBytes) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        messageDigest.update(LazyHolder.VERSION_BYTES);
+        messageDigest.update(statementBytes);
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    /**
+     * @return the cached portfolio period or null if there is no usable entry
+     */
+    public PortfolioPeriod getPortfolioPeriod(String key) {
+        String entryKey = key + PORTFOLIO_PERIOD_KEY_SUFFIX;
+        byte[] bytes = diskCache.get(entryKey);
+        if (bytes == null) {
+            return null;
+        }
+        try (PortfolioBinaryReader reader = new PortfolioBinaryReader(new ByteArrayInputStream(bytes))) {
+            return reader.readPortfolioPeriod();
+        } catch (IOException | RuntimeException e) {
+            //Corrupt or foreign entry, e.g. a truncated file or an invalid date or zone
+            diskCache.remove(entryKey);
+            return null;
+        }
+    }
+
+    public void putPortfolioPeriod(String key, PortfolioPeriod portfolioPeriod) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PortfolioBinaryWriter writer = new PortfolioBinaryWriter(bytes)) {
+            writer.writePortfolioPeriod(portfolioPeriod);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        diskCache.put(key + PORTFOLIO_PERIOD_KEY_SUFFIX, bytes.toByteArray());
+    }
+
+    /**
+     * @return the cached portfolio values or null if there is no usable entry
+     */
+    public List<PortfolioValue> getPortfolioValues(String key) {
+        String entryKey = key + PORTFOLIO_VALUES_KEY_SUFFIX;
+        byte[] bytes = diskCache.get(entryKey);
+        if (bytes == null) {
+            return null;
+        }
+        try (PortfolioBinaryReader reader = new PortfolioBinaryReader(new ByteArrayInputStream(bytes))) {
+            List<PortfolioValue> portfolioValues = new ArrayList<>();
+            PortfolioValue portfolioValue;
+            while ((portfolioValue = reader.readPortfolioValue()) != null) {
+                portfolioValues.add(portfolioValue);
+            }
+            return portfolioValues;
+        } catch (IOException | RuntimeException e) {
+            diskCache.remove(entryKey);
+            return null;
+        }
+    }
+
+    public void putPortfolioValues(String key, List<PortfolioValue> portfolioValues) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PortfolioBinaryWriter writer = new PortfolioBinaryWriter(bytes)) {
+            for (PortfolioValue portfolioValue : portfolioValues) {
+                writer.writePortfolioValue(portfolioValue);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        diskCache.put(key + PORTFOLIO_VALUES_KEY_SUFFIX, bytes.toByteArray());
+    }
+}
@@ -39,7 +39,17 @@ public class AccountStatementHoldingLineParser {
         );
     }
 
-    public Holding parseTradingAccountStatementHoldingLine(String line) {
+    private final SymbolTable symbolTable;
+
+    public AccountStatementHoldingLineParser() {
+        this(new SymbolTable());
+    }
+
+    public AccountStatementHoldingLineParser(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    public Holding parseTradingAccountStatementHoldingLine(CharSequence line) {
 
         Matcher matcher = LazyHolder.LINE_PATTERN.matcher(line);
         boolean matchFound = matcher.find();
@@ -49,12 +59,12 @@ public class AccountStatementHoldingLineParser {
 
         Holding holding = new Holding();
         holding.setCurrency(Currency.USD);
-        holding.setSymbol(matcher.group("symbol"));
-        holding.setCompany(matcher.group("company"));
-        holding.setIsin(matcher.group("isin"));
-        holding.setQuantity(parseDecimal(matcher.group("quantity")));
-        holding.setPrice(parseMoney(matcher.group("price")));
-        holding.setValue(parseMoney(matcher.group("value")));
+        holding.setSymbol(symbolTable.intern(line, matcher, "symbol"));
+        holding.setCompany(symbolTable.intern(line, matcher, "company"));
+        holding.setIsin(symbolTable.intern(line, matcher, "isin"));
+        holding.setQuantity(parseDecimal(line, matcher, "quantity"));
+        holding.setPrice(parseMoney(line, matcher, "price"));
+        holding.setValue(parseMoney(line, matcher, "value"));
         return holding;
     }
 
@@ -26,12 +26,15 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.isBlank;
 import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseMoney;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.trim;
 
 @SuppressWarnings("DuplicatedCode")
 public class AccountStatementParser {
@@ -77,11 +80,110 @@ public class AccountStatementParser {
         private static final DateTimeFormatter PERIOD_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy");
     }
 
-    private final AccountStatementHoldingLineParser accStatementHoldingLineParser = new AccountStatementHoldingLineParser();
+    private enum Section {
+        HEADER,
+        HOLDINGS,
+        TRANSACTIONS,
+        FOOTER,
+    }
+
+    private static class Header {
+
+        private String accountName;
+
+        private String accountNumber;
+
+        private LocalDate periodFrom;
+
+        private LocalDate periodTo;
+
+        private BigDecimal cash;
+
+        private boolean isComplete() {
+            return accountName != null && accountNumber != null && periodFrom != null && cash != null;
+        }
+
+        private void parseLine(CharSequence line, LineClass lineClass) {
+            switch (lineClass) {
+                case ACCOUNT_NAME: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        accountName = matcher.group("accountName");
+                    }
+                    break;
+                }
+                case ACCOUNT_NUMBER: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        accountNumber = matcher.group("accountNumber");
+                    }
+                    break;
+                }
+                case PERIOD: {
+                    Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        periodFrom = LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER);
+                        periodTo = LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER);
+                    }
+                    break;
+                }
+                case CASH_VALUE: {
+                    Matcher matcher = LazyHolder.CASH_USD_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        cash = parseMoney(line, matcher, "cash");
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    private final AccountStatementHoldingLineParser accStatementHoldingLineParser;
+
+    private final AccountStatementTransactionLineParser accStatementTransactionLineParser;
+
+    private final LineClassifier lineClassifier;
+
+    public AccountStatementParser() {
+        this(new SymbolTable());
+    }
+
+    /**
+     * @param symbolTable canonicalizes symbols, company names and ISINs of both holding and transaction lines
+     */
+    public AccountStatementParser(SymbolTable symbolTable) {
+        this(new AccountStatementTransactionLineParser(true, false, symbolTable), new LineClassifier(), symbolTable);
+    }
+
+    public AccountStatementParser(AccountStatementTransactionLineParser accStatementTransactionLineParser) {
+        this(accStatementTransactionLineParser, new LineClassifier());
+    }
 
-    private final AccountStatementTransactionLineParser accStatementTransactionLineParser = new AccountStatementTransactionLineParser();
+    public AccountStatementParser(AccountStatementTransactionLineParser accStatementTransactionLineParser, LineClassifier lineClassifier) {
+        this(accStatementTransactionLineParser, lineClassifier, new SymbolTable());
+    }
 
-    public List<PortfolioValue> parsePortfolioValueFromTradingAccountStatement(List<String> lines) {
+    public AccountStatementParser(
+            AccountStatementTransactionLineParser accStatementTransactionLineParser,
+            LineClassifier lineClassifier,
+            SymbolTable symbolTable
+    ) {
+        this.accStatementTransactionLineParser = accStatementTransactionLineParser;
+        this.lineClassifier = lineClassifier;
+        this.accStatementHoldingLineParser = new AccountStatementHoldingLineParser(symbolTable);
+    }
+
+    public List<PortfolioValue> parsePortfolioValueFromTradingAccountStatement(List<? extends CharSequence> lines) {
+        return parsePortfolioValueFromTradingAccountStatement(lines.iterator());
+    }
+
+    /**
+     * Consumes lines only up to the account summary block, so the rest of a lazily extracted document
+     * is never read.
+     */
+    public List<PortfolioValue> parsePortfolioValueFromTradingAccountStatement(Iterator<? extends CharSequence> lines) {
         String accountName = null;
         String accountNumber = null;
         LocalDate periodFrom = null;
@@ -89,48 +191,56 @@ public class AccountStatementParser {
         boolean eurLinesStarted = false;
         boolean usdLinesStarted = false;
 
-        for (int i = 0, linesSize = lines.size(); i < linesSize; i++) {
-            String line = lines.get(i);
-            line = stripToEmpty(line);
-            if (line.isBlank()) {
+        while (lines.hasNext()) {
+            CharSequence line = trim(lines.next());
+            if (isBlank(line)) {
                 continue;
             }
+            LineClass lineClass = lineClassifier.classify(line);
             if (!eurLinesStarted) {
-                if (line.equals("EUR Account summary")) {
+                if (lineClass == LineClass.EUR_ACCOUNT_SUMMARY && "EUR Account summary".contentEquals(line)) {
                     eurLinesStarted = true;
                     continue;
                 }
             }
-            {
-                Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    accountName = matcher.group("accountName");
-                    continue;
+            switch (lineClass) {
+                case ACCOUNT_NAME: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        accountName = matcher.group("accountName");
+                        continue;
+                    }
+                    break;
                 }
-            }
-            {
-                Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    accountNumber = matcher.group("accountNumber");
-                    continue;
+                case ACCOUNT_NUMBER: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        accountNumber = matcher.group("accountNumber");
+                        continue;
+                    }
+                    break;
                 }
-            }
-            {
-                Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    periodFrom = LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER);
-                    periodTo = LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER);
-                    continue;
+                case PERIOD: {
+                    Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        periodFrom = LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER);
+                        periodTo = LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER);
+                        continue;
+                    }
+                    break;
                 }
+                default:
+                    break;
             }
             if (eurLinesStarted && !usdLinesStarted) {
-                if (line.equals("USD Account summary")) {
+                if (lineClass == LineClass.USD_ACCOUNT_SUMMARY && "USD Account summary".contentEquals(line)) {
                     usdLinesStarted = true;
                 }
                 continue;
             }
             {
-                if (LazyHolder.ACC_SUMMARY_STARTING_ENDING_PATTERN.matcher(line).find()) {
+                if (lineClass == LineClass.ACCOUNT_SUMMARY_COLUMNS
+                        && LazyHolder.ACC_SUMMARY_STARTING_ENDING_PATTERN.matcher(line).find()) {
                     if (accountName == null) {
                         throw new IllegalStateException("Account name not found");
                     }
@@ -148,7 +258,7 @@ public class AccountStatementParser {
                     BigDecimal totalStartValue;
                     BigDecimal totalEndValue;
                     {
-                        String stocksValueLine = lines.get(i + 1);
+                        CharSequence stocksValueLine = lines.next();
                         Matcher matcher = LazyHolder.ACC_SUMMARY_STOCKS_VALUE_PATTERN.matcher(stocksValueLine);
                         if (matcher.find()) {
                             stocksStartValue = parseMoney(matcher.group("startValue"));
@@ -158,7 +268,7 @@ public class AccountStatementParser {
                         }
                     }
                     {
-                        String cashValueLine = lines.get(i + 2);
+                        CharSequence cashValueLine = lines.next();
                         Matcher matcher = LazyHolder.ACC_SUMMARY_CASH_VALUE_PATTERN.matcher(cashValueLine);
                         if (matcher.find()) {
                             cashStartValue = parseMoney(matcher.group("startValue"));
@@ -168,7 +278,7 @@ public class AccountStatementParser {
                         }
                     }
                     {
-                        String totalValueLine = lines.get(i + 3);
+                        CharSequence totalValueLine = lines.next();
                         Matcher matcher = LazyHolder.ACC_SUMMARY_TOTAL_VALUE_PATTERN.matcher(totalValueLine);
                         if (matcher.find()) {
                             totalStartValue = parseMoney(matcher.group("startValue"));
@@ -206,160 +316,124 @@ public class AccountStatementParser {
         throw new IllegalArgumentException("Parsing failed");
     }
 
-    public PortfolioPeriod parseTradingAccountStatement(List<String> lines) {
-        String accountName = null;
-        String accountNumber = null;
-        LocalDate periodFrom = null;
-        LocalDate periodTo = null;
-        BigDecimal cash = null;
-        for (String line : lines) {
+    public PortfolioPeriod parseTradingAccountStatement(List<? extends CharSequence> lines) {
+        return parseTradingAccountStatement(lines.iterator());
+    }
 
-            if (accountName != null && accountNumber != null && periodFrom != null && cash != null) {
-                break;
-            }
+    /**
+     * Parses the statement in one forward pass.
+     * Every line is trimmed once, as a view if it is one, and handed over to the line parser of the section it belongs to:
+     * <pre>
+     * HEADER -> HOLDINGS (Portfolio breakdown) -> HEADER -> TRANSACTIONS -> FOOTER
+     * </pre>
+     * Account name, number, period and cash are looked for in every section until all of them are found.
+     */
+    public PortfolioPeriod parseTradingAccountStatement(Iterator<? extends CharSequence> lines) {
+        Header header = new Header();
+        List<Transaction> transactions = new ArrayList<>();
+        List<Holding> holdings = new ArrayList<>();
 
-            line = stripToEmpty(line);
-            if (line.isBlank()) {
+        Section section = Section.HEADER;
+        boolean holdingsSectionSeen = false;
+        boolean transactionsSectionSeen = false;
+
+        for (int lineIdx = 0; lines.hasNext(); lineIdx++) {
+            CharSequence line = trim(lines.next());
+            if (isBlank(line)) {
                 continue;
             }
-            {
-                Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    accountName = matcher.group("accountName");
-                    continue;
-                }
-            }
-            {
-                Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    accountNumber = matcher.group("accountNumber");
-                    continue;
+            LineClass lineClass = lineClassifier.classify(line);
+            try {
+                if (!header.isComplete()) {
+                    header.parseLine(line, lineClass);
                 }
-            }
-            {
-                Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    periodFrom = LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER);
-                    periodTo = LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER);
-                    continue;
+
+                switch (section) {
+                    case HEADER: {
+                        if (!holdingsSectionSeen && lineClass == LineClass.HOLDINGS_SECTION_START
+                                && LazyHolder.HOLDINGS_SECTION_START_PATTERN.matcher(line).matches()) {
+                            holdingsSectionSeen = true;
+                            section = Section.HOLDINGS;
+                        } else if (!transactionsSectionSeen && lineClass == LineClass.TRANSACTIONS_SECTION_START
+                                && LazyHolder.TRANSACTIONS_SECTION_START_PATTERN.matcher(line).matches()) {
+                            transactionsSectionSeen = true;
+                            section = Section.TRANSACTIONS;
+                        }
+                        break;
+                    }
+                    case HOLDINGS: {
+                        if (lineClass == LineClass.HOLDINGS_HEADER && LazyHolder.HOLDINGS_HEADER_PATTERN.matcher(line).matches()) {
+                            break;
+                        }
+                        if (lineClass == LineClass.STOCKS_VALUE && LazyHolder.HOLDINGS_SECTION_END_PATTERN.matcher(line).matches()) {
+                            section = Section.HEADER;
+                            break;
+                        }
+                        holdings.add(accStatementHoldingLineParser.parseTradingAccountStatementHoldingLine(line));
+                        break;
+                    }
+                    case TRANSACTIONS: {
+                        if (lineClass == LineClass.TABLE_HEADER && LazyHolder.TRANSACTIONS_HEADER_PATTERN.matcher(line).matches()) {
+                            break;
+                        }
+                        if (lineClass == LineClass.FOOTER) {
+                            section = Section.FOOTER;
+                            break;
+                        }
+                        if (lineClass == LineClass.INTERNAL_TRANSFER) {
+                            break;
+                        }
+                        transactions.add(accStatementTransactionLineParser.parseTradingAccountTransactionLine(line));
+                        break;
+                    }
+                    case FOOTER: {
+                        if (!holdingsSectionSeen && lineClass == LineClass.HOLDINGS_SECTION_START
+                                && LazyHolder.HOLDINGS_SECTION_START_PATTERN.matcher(line).matches()) {
+                            holdingsSectionSeen = true;
+                            section = Section.HOLDINGS;
+                        }
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Unexpected value: " + section);
                 }
+            } catch (Exception e) {
+                throw new IllegalStateException(String.format("Exception while parsing %s.line: '%s'", (lineIdx + 1), line), e);
             }
-            {
-                Matcher matcher = LazyHolder.CASH_USD_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    cash = parseMoney(matcher.group("cash"));
-                    continue;
-                }
+
+            if (header.isComplete() && section == Section.FOOTER && holdingsSectionSeen) {
+                break;
             }
         }
-        if (accountName == null) {
+        if (header.accountName == null) {
             throw new IllegalStateException("Account name not found");
         }
-        if (accountNumber == null) {
+        if (header.accountNumber == null) {
             throw new IllegalStateException("Account number not found");
         }
-        if (periodFrom == null) {
+        if (header.periodFrom == null) {
             throw new IllegalStateException("Period not found");
         }
-        if (cash == null) {
+        if (header.cash == null) {
             throw new IllegalStateException("Cash not found");
         }
 
-        List<Transaction> transactions = parseTradingAccountStatementTransactions(lines);
-        List<Holding> holdings = parseTradingAccountStatementHoldings(lines);
-
         PortfolioPeriod portfolioPeriod;
         {
             portfolioPeriod = new PortfolioPeriod();
-            portfolioPeriod.setAccountName(accountName);
-            portfolioPeriod.setAccountNumber(accountNumber);
-            portfolioPeriod.setPeriodFrom(periodFrom);
-            portfolioPeriod.setPeriodTo(periodTo);
+            portfolioPeriod.setAccountName(header.accountName);
+            portfolioPeriod.setAccountNumber(header.accountNumber);
+            portfolioPeriod.setPeriodFrom(header.periodFrom);
+            portfolioPeriod.setPeriodTo(header.periodTo);
             portfolioPeriod.setTransactions(transactions);
 
             PortfolioBreakdown portfolioBreakdown = new PortfolioBreakdown();
             portfolioBreakdown.setHoldings(holdings);
-            portfolioBreakdown.setDate(periodTo);
-            portfolioBreakdown.setCash(Map.of(Currency.USD, cash));
+            portfolioBreakdown.setDate(header.periodTo);
+            portfolioBreakdown.setCash(Map.of(Currency.USD, header.cash));
             portfolioPeriod.setPortfolioBreakdownSnapshots(Map.of(portfolioBreakdown.getDate(), portfolioBreakdown));
         }
         return portfolioPeriod;
     }
 
-    private List<Transaction> parseTradingAccountStatementTransactions(List<String> lines) {
-        List<Transaction> transactions = new ArrayList<>();
-        boolean transactionLinesStarted = false;
-        for (int i = 0, linesSize = lines.size(); i < linesSize; i++) {
-            String line = stripToEmpty(lines.get(i));
-            try {
-                if (line.isBlank()) {
-                    continue;
-                }
-                if (!transactionLinesStarted) {
-                    if (LazyHolder.TRANSACTIONS_SECTION_START_PATTERN.matcher(line).matches()) {
-                        transactionLinesStarted = true;
-                    }
-                    continue;
-                }
-                if (LazyHolder.TRANSACTIONS_HEADER_PATTERN.matcher(line).matches()) {
-                    continue;
-                }
-                if (line.startsWith("This statement is provided by Revolut Securities Europe UAB")) {
-                    break;
-                }
-                if (line.startsWith("Get help directly In app")) {
-                    break;
-                }
-                if (line.startsWith("Report lost or stolen card")) {
-                    break;
-                }
-                if (line.contains("Transfer from Revolut Bank UAB to Revolut Securities Europe UAB")) {
-                    continue;
-                }
-                if (line.contains("Transfer from Revolut Trading Ltd to Revolut Securities Europe UAB")) {
-                    continue;
-                }
-                Transaction transaction = accStatementTransactionLineParser.parseTradingAccountTransactionLine(line);
-                transactions.add(transaction);
-            } catch (Exception e) {
-                throw new IllegalStateException(String.format("Exception while parsing %s.line: '%s'", (i + 1), line), e);
-            }
-        }
-        return transactions;
-    }
-
-    private List<Holding> parseTradingAccountStatementHoldings(List<String> lines) {
-        List<Holding> holdings = new ArrayList<>();
-        boolean transactionLinesStarted = false;
-        for (int i = 0, linesSize = lines.size(); i < linesSize; i++) {
-            String line = stripToEmpty(lines.get(i));
-            try {
-                if (line.isBlank()) {
-                    continue;
-                }
-                if (!transactionLinesStarted) {
-                    if (LazyHolder.HOLDINGS_SECTION_START_PATTERN.matcher(line).matches()) {
-                        transactionLinesStarted = true;
-                    }
-                    continue;
-                }
-                if (LazyHolder.HOLDINGS_HEADER_PATTERN.matcher(line).matches()) {
-                    continue;
-                }
-                if (LazyHolder.HOLDINGS_SECTION_END_PATTERN.matcher(line).matches()) {
-                    break;
-                }
-                Holding holding = accStatementHoldingLineParser.parseTradingAccountStatementHoldingLine(line);
-                holdings.add(holding);
-            } catch (Exception e) {
-                throw new IllegalStateException(String.format("Exception while parsing %s.line: '%s'", (i + 1), line), e);
-            }
-        }
-        return holdings;
-    }
-
-    private String stripToEmpty(String s) {
-        return s == null ? "" : s.trim();
-    }
-
 }
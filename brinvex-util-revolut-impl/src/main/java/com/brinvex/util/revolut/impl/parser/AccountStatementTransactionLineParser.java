@@ -20,12 +20,11 @@ import com.brinvex.util.revolut.api.model.Transaction;
 import com.brinvex.util.revolut.api.model.TransactionSide;
 import com.brinvex.util.revolut.api.model.TransactionType;
 
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.brinvex.util.revolut.impl.parser.DateTimeParseUtil.parseTransactionDateTime;
 import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseDecimal;
 import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseMoney;
 
@@ -64,16 +63,57 @@ public class AccountStatementTransactionLineParser {
                 "\\s+(?<fees>-?(US)?\\$(\\d+,)*\\d+(\\.\\d+)?)" +
                 "\\s+(?<commission>-?(US)?\\$(\\d+,)*\\d+(\\.\\d+)?)"
         );
+    }
+
+    private final AccountStatementTransactionLineTokenizer tokenizer;
+
+    private final boolean lazyDecimals;
+
+    private final SymbolTable symbolTable;
+
+    public AccountStatementTransactionLineParser() {
+        this(true);
+    }
+
+    /**
+     * @param tokenizerEnabled whether lines are parsed by {@link AccountStatementTransactionLineTokenizer} first;
+     *                         the regex based parser is then used only for lines the tokenizer rejects
+     */
+    public AccountStatementTransactionLineParser(boolean tokenizerEnabled) {
+        this(tokenizerEnabled, false);
+    }
 
-        private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss O");
+    /**
+     * @param lazyDecimals whether quantity, price, value, fees and commission are parsed on first access
+     *                     instead of eagerly, which speeds up consumers that do not read all of them
+     */
+    public AccountStatementTransactionLineParser(boolean tokenizerEnabled, boolean lazyDecimals) {
+        this(tokenizerEnabled, lazyDecimals, new SymbolTable());
     }
 
-    public Transaction parseTradingAccountTransactionLine(String line) {
-        Transaction transaction = new Transaction();
+    public AccountStatementTransactionLineParser(boolean tokenizerEnabled, boolean lazyDecimals, SymbolTable symbolTable) {
+        this.tokenizer = tokenizerEnabled ? new AccountStatementTransactionLineTokenizer(lazyDecimals, symbolTable) : null;
+        this.lazyDecimals = lazyDecimals;
+        this.symbolTable = symbolTable;
+    }
+
+    public Transaction parseTradingAccountTransactionLine(CharSequence line) {
+        if (tokenizer != null) {
+            Transaction transaction = tokenizer.tryParse(line);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        return parseTradingAccountTransactionLineByRegex(line);
+    }
+
+    Transaction parseTradingAccountTransactionLineByRegex(CharSequence line) {
+        LazyDecimalTransaction lazyTransaction = lazyDecimals ? new LazyDecimalTransaction() : null;
+        Transaction transaction = lazyTransaction != null ? lazyTransaction : new Transaction();
         transaction.setCurrency(Currency.USD);
 
         TransactionType transactionType;
-        String numbersPart;
+        CharSequence numbersPart;
         {
             Matcher matcher = LazyHolder.TRANSACTION_DATE_SYMBOL_TYPE_PATTERN.matcher(line);
             boolean matchFound = matcher.find();
@@ -81,10 +121,10 @@ public class AccountStatementTransactionLineParser {
                 throw new IllegalStateException(String.format("Could not parse transaction line: '%s'", line));
             }
             transactionType = parseTransactionType(matcher.group("type"));
-            numbersPart = matcher.group("numbersPart");
+            numbersPart = line.subSequence(matcher.start("numbersPart"), matcher.end("numbersPart"));
 
-            transaction.setDate(ZonedDateTime.parse(matcher.group("date"), LazyHolder.DATETIME_FORMATTER));
-            transaction.setSymbol(matcher.group("symbol"));
+            transaction.setDate(parseTransactionDateTime(line, matcher.start("date"), matcher.end("date")));
+            transaction.setSymbol(symbolTable.intern(line, matcher, "symbol"));
             transaction.setType(transactionType);
         }
         {
@@ -114,14 +154,29 @@ public class AccountStatementTransactionLineParser {
                 throw new IllegalStateException(String.format("Could not parse transaction line: '%s'", line));
             }
 
-            transaction.setValue(parseMoney(matcher.group("value")));
-            transaction.setFees(parseMoney(matcher.group("fees")));
-            transaction.setCommission(parseMoney(matcher.group("commission")));
-            if (pattern == LazyHolder.QTY_VALUE_FEES_COMMISSIONS_PATTERN) {
-                transaction.setQuantity(parseDecimal(matcher.group("quantity")));
-            } else if (pattern == LazyHolder.TRADE_PATTERN) {
-                transaction.setQuantity(parseDecimal(matcher.group("quantity")));
-                transaction.setPrice(parseMoney(matcher.group("price")));
+            if (lazyTransaction != null) {
+                lazyTransaction.setSource(numbersPart);
+                lazyTransaction.setValueRange(matcher.start("value"), matcher.end("value"));
+                lazyTransaction.setFeesRange(matcher.start("fees"), matcher.end("fees"));
+                lazyTransaction.setCommissionRange(matcher.start("commission"), matcher.end("commission"));
+            } else {
+                transaction.setValue(parseMoney(numbersPart, matcher, "value"));
+                transaction.setFees(parseMoney(numbersPart, matcher, "fees"));
+                transaction.setCommission(parseMoney(numbersPart, matcher, "commission"));
+            }
+            if (pattern == LazyHolder.QTY_VALUE_FEES_COMMISSIONS_PATTERN || pattern == LazyHolder.TRADE_PATTERN) {
+                if (lazyTransaction != null) {
+                    lazyTransaction.setQuantityRange(matcher.start("quantity"), matcher.end("quantity"));
+                } else {
+                    transaction.setQuantity(parseDecimal(numbersPart, matcher, "quantity"));
+                }
+            }
+            if (pattern == LazyHolder.TRADE_PATTERN) {
+                if (lazyTransaction != null) {
+                    lazyTransaction.setPriceRange(matcher.start("price"), matcher.end("price"));
+                } else {
+                    transaction.setPrice(parseMoney(numbersPart, matcher, "price"));
+                }
                 transaction.setSide(TransactionSide.valueOf(matcher.group("side").toUpperCase()));
             }
         }
@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import static com.brinvex.util.revolut.impl.parser.DateTimeParseUtil.parseTransactionDateTime;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseDecimal;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseMoney;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.startsWith;
+
+/**
+ * Regex-free parser of canonical transaction lines, i.e. lines with single spaces between tokens:
+ * <pre>
+ * dd MMM yyyy HH:mm:ss ZZZ [symbol] type [quantity price side] value fees commission
+ * </pre>
+ * The line is scanned once: the fixed-width date prefix is validated in place,
+ * the type keyword is searched from the right and the numbers are read from right to left.
+ * Lines of any other shape are rejected, so that the regex based parser can handle them.
+ * For every accepted line the result is identical to the one of the regex based parser.
+ */
+class AccountStatementTransactionLineTokenizer {
+
+    private static final int DATE_LENGTH = "dd MMM yyyy HH:mm:ss ZZZ".length();
+
+    private static final String[] TYPE_KEYWORDS = {
+            "Custody fee",
+            "Dividend",
+            "Cash top-up",
+            "Cash withdrawal",
+            "Trade - Market",
+            "Trade - Limit",
+            "Stock split",
+            "Spinoff",
+    };
+
+    private static final TransactionType[] TYPES = {
+            TransactionType.CUSTODY_FEE,
+            TransactionType.DIVIDEND,
+            TransactionType.CASH_TOP_UP,
+            TransactionType.CASH_WITHDRAWAL,
+            TransactionType.TRADE_MARKET,
+            TransactionType.TRADE_LIMIT,
+            TransactionType.STOCK_SPLIT,
+            TransactionType.SPINOFF,
+    };
+
+    /**
+     * Maximum number of tokens following the type keyword, see {@link TransactionType#TRADE_MARKET}.
+     */
+    private static final int MAX_NUMBER_TOKENS = 6;
+
+    private final boolean lazyDecimals;
+
+    private final SymbolTable symbolTable;
+
+    AccountStatementTransactionLineTokenizer() {
+        this(false, new SymbolTable());
+    }
+
+    /**
+     * @param lazyDecimals whether the amounts are parsed on first access, see {@link LazyDecimalTransaction}
+     */
+    AccountStatementTransactionLineTokenizer(boolean lazyDecimals, SymbolTable symbolTable) {
+        this.lazyDecimals = lazyDecimals;
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * @return parsed transaction or null if the line is not in the canonical shape
+     */
+    Transaction tryParse(CharSequence line) {
+        int lineLength = line.length();
+        if (lineLength <= DATE_LENGTH + 1 || !isDatePrefix(line) || line.charAt(DATE_LENGTH) != ' ') {
+            return null;
+        }
+        //Tokens are collected from the right until a type keyword followed by at least one token is found.
+        //Up to two tokens of a multi-word keyword are collected before its first word is reached.
+        int[] tokenStarts = new int[MAX_NUMBER_TOKENS + 2];
+        int[] tokenEnds = new int[MAX_NUMBER_TOKENS + 2];
+        int tokenCount = 0;
+        int typeIdx = -1;
+        int typeStart = -1;
+        int tokenEnd = lineLength;
+        for (int i = lineLength - 1; i >= DATE_LENGTH; i--) {
+            char c = line.charAt(i);
+            if (c != ' ') {
+                if (Character.isWhitespace(c)) {
+                    return null;
+                }
+                continue;
+            }
+            if (i == tokenEnd - 1) {
+                //Two consecutive spaces
+                return null;
+            }
+            typeIdx = findTypeKeyword(line, i + 1);
+            if (typeIdx >= 0) {
+                typeStart = i + 1;
+                break;
+            }
+            if (tokenCount == tokenStarts.length) {
+                return null;
+            }
+            tokenStarts[tokenCount] = i + 1;
+            tokenEnds[tokenCount] = tokenEnd;
+            tokenCount++;
+            tokenEnd = i;
+        }
+        if (typeIdx < 0) {
+            return null;
+        }
+        int typeEnd = typeStart + TYPE_KEYWORDS[typeIdx].length();
+        int numberTokenCount = 0;
+        while (numberTokenCount < tokenCount && tokenStarts[numberTokenCount] > typeEnd) {
+            numberTokenCount++;
+        }
+        TransactionType type = TYPES[typeIdx];
+
+        LazyDecimalTransaction lazyTransaction = lazyDecimals ? new LazyDecimalTransaction() : null;
+        Transaction transaction = lazyTransaction != null ? lazyTransaction : new Transaction();
+        transaction.setCurrency(Currency.USD);
+        transaction.setType(type);
+        transaction.setDate(parseTransactionDateTime(line, 0, DATE_LENGTH));
+        transaction.setSymbol(typeStart - 1 > DATE_LENGTH ? symbolTable.intern(line, DATE_LENGTH + 1, typeStart - 1) : null);
+
+        //Numbers are read from right to left: commission, fees, value, [side, price,] quantity
+        switch (type) {
+            case CASH_TOP_UP:
+            case CASH_WITHDRAWAL:
+            case CUSTODY_FEE:
+            case DIVIDEND: {
+                if (numberTokenCount != 3 || !areMoneyTokens(line, tokenStarts, tokenEnds, 0, 3)) {
+                    return null;
+                }
+                break;
+            }
+            case SPINOFF:
+            case STOCK_SPLIT: {
+                if (numberTokenCount != 4
+                        || !areMoneyTokens(line, tokenStarts, tokenEnds, 0, 3)
+                        || !isNumber(line, tokenStarts[3], tokenEnds[3], false, false)) {
+                    return null;
+                }
+                if (lazyTransaction != null) {
+                    lazyTransaction.setQuantityRange(tokenStarts[3], tokenEnds[3]);
+                } else {
+                    transaction.setQuantity(parseDecimal(line, tokenStarts[3], tokenEnds[3]));
+                }
+                break;
+            }
+            case TRADE_LIMIT:
+            case TRADE_MARKET: {
+                if (numberTokenCount != 6
+                        || !areMoneyTokens(line, tokenStarts, tokenEnds, 0, 3)
+                        || !isNumber(line, tokenStarts[4], tokenEnds[4], true, false)
+                        || !isNumber(line, tokenStarts[5], tokenEnds[5], false, false)) {
+                    return null;
+                }
+                TransactionSide side;
+                if (startsWith(line, "Buy", tokenStarts[3]) && tokenEnds[3] - tokenStarts[3] == 3) {
+                    side = TransactionSide.BUY;
+                } else if (startsWith(line, "Sell", tokenStarts[3]) && tokenEnds[3] - tokenStarts[3] == 4) {
+                    side = TransactionSide.SELL;
+                } else {
+                    return null;
+                }
+                if (lazyTransaction != null) {
+                    lazyTransaction.setQuantityRange(tokenStarts[5], tokenEnds[5]);
+                    lazyTransaction.setPriceRange(tokenStarts[4], tokenEnds[4]);
+                } else {
+                    transaction.setQuantity(parseDecimal(line, tokenStarts[5], tokenEnds[5]));
+                    transaction.setPrice(parseMoney(line, tokenStarts[4], tokenEnds[4]));
+                }
+                transaction.setSide(side);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unexpected value: " + type);
+        }
+        if (lazyTransaction != null) {
+            lazyTransaction.setSource(line);
+            lazyTransaction.setCommissionRange(tokenStarts[0], tokenEnds[0]);
+            lazyTransaction.setFeesRange(tokenStarts[1], tokenEnds[1]);
+            lazyTransaction.setValueRange(tokenStarts[2], tokenEnds[2]);
+        } else {
+            transaction.setCommission(parseMoney(line, tokenStarts[0], tokenEnds[0]));
+            transaction.setFees(parseMoney(line, tokenStarts[1], tokenEnds[1]));
+            transaction.setValue(parseMoney(line, tokenStarts[2], tokenEnds[2]));
+        }
+        return transaction;
+    }
+
+    /**
+     * Checks {@code \d{2} \w{3} \d{4} \d{2}:\d{2}:\d{2} [A-Z]{3}}
+     */
+    private static boolean isDatePrefix(CharSequence line) {
+        return isDigit(line, 0) && isDigit(line, 1)
+               && line.charAt(2) == ' '
+               && isWordChar(line.charAt(3)) && isWordChar(line.charAt(4)) && isWordChar(line.charAt(5))
+               && line.charAt(6) == ' '
+               && isDigit(line, 7) && isDigit(line, 8) && isDigit(line, 9) && isDigit(line, 10)
+               && line.charAt(11) == ' '
+               && isDigit(line, 12) && isDigit(line, 13)
+               && line.charAt(14) == ':'
+               && isDigit(line, 15) && isDigit(line, 16)
+               && line.charAt(17) == ':'
+               && isDigit(line, 18) && isDigit(line, 19)
+               && line.charAt(20) == ' '
+               && isUpperCaseLetter(line.charAt(21)) && isUpperCaseLetter(line.charAt(22)) && isUpperCaseLetter(line.charAt(23));
+    }
+
+    /**
+     * @return index of the type keyword starting at {@code start} and followed by a space, or -1
+     */
+    private static int findTypeKeyword(CharSequence line, int start) {
+        for (int i = 0; i < TYPE_KEYWORDS.length; i++) {
+            String keyword = TYPE_KEYWORDS[i];
+            int end = start + keyword.length();
+            if (end < line.length() && line.charAt(end) == ' ' && startsWith(line, keyword, start)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean areMoneyTokens(CharSequence line, int[] tokenStarts, int[] tokenEnds, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isNumber(line, tokenStarts[i], tokenEnds[i], true, true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks {@code -?(US)?\$(\d+,)*\d+(\.\d+)?} for money or {@code -?(\d+,)*\d+(\.\d+)?} for plain numbers.
+     */
+    private static boolean isNumber(CharSequence s, int start, int end, boolean money, boolean dollarRequired) {
+        int i = start;
+        if (i < end && s.charAt(i) == '-') {
+            i++;
+        }
+        if (money) {
+            if (i + 1 < end && s.charAt(i) == 'U' && s.charAt(i + 1) == 'S') {
+                i += 2;
+            }
+            if (i < end && s.charAt(i) == '$') {
+                i++;
+            } else if (dollarRequired) {
+                return false;
+            }
+        }
+        boolean digitSeen = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitSeen = true;
+            } else if (c == ',' && digitSeen) {
+                digitSeen = false;
+            } else {
+                break;
+            }
+        }
+        if (!digitSeen) {
+            return false;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            if (i == end) {
+                return false;
+            }
+            for (; i < end; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+        }
+        return i == end;
+    }
+
+    private static boolean isDigit(CharSequence s, int idx) {
+        char c = s.charAt(idx);
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isUpperCaseLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Fixed layout parsers for the timestamps which occur on every statement row.
+ * Input of any other shape, or with out of range fields, is passed to the original
+ * {@link DateTimeFormatter} based parsing, so results and exceptions stay the same.
+ * Month names are English, as printed on the statements, in both paths regardless of the default locale.
+ */
+class DateTimeParseUtil {
+
+    private static class LazyHolder {
+        private static final DateTimeFormatter TRANSACTION_DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss O", Locale.ENGLISH);
+    }
+
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final String GMT = "GMT";
+
+    private static final ZoneOffset GMT_OFFSET = ZoneOffset.UTC;
+
+    /**
+     * Length of a transaction timestamp like {@code 02 Jan 2023 14:30:00 GMT}.
+     */
+    static final int TRANSACTION_DATETIME_LENGTH = "dd MMM yyyy HH:mm:ss GMT".length();
+
+    /**
+     * Parses a transaction timestamp in the format {@code dd MMM yyyy HH:mm:ss O}.
+     */
+    public static ZonedDateTime parseTransactionDateTime(CharSequence s, int start, int end) {
+        if (end - start == TRANSACTION_DATETIME_LENGTH
+            && s.charAt(start + 2) == ' '
+            && s.charAt(start + 6) == ' '
+            && s.charAt(start + 11) == ' '
+            && s.charAt(start + 14) == ':'
+            && s.charAt(start + 17) == ':'
+            && s.charAt(start + 20) == ' '
+            && regionMatches(s, start + 21, GMT)) {
+            int day = parse2Digits(s, start);
+            int month = parseMonth(s, start + 3);
+            int year = parse4Digits(s, start + 7);
+            int hour = parse2Digits(s, start + 12);
+            int minute = parse2Digits(s, start + 15);
+            int second = parse2Digits(s, start + 18);
+            if (month > 0 && year >= 1 && isValidDay(year, month, day)
+                && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59) {
+                return ZonedDateTime.of(LocalDateTime.of(year, month, day, hour, minute, second), GMT_OFFSET);
+            }
+        }
+        return ZonedDateTime.parse(s.subSequence(start, end), LazyHolder.TRANSACTION_DATETIME_FORMATTER);
+    }
+
+    public static ZonedDateTime parseTransactionDateTime(String s) {
+        return parseTransactionDateTime(s, 0, s.length());
+    }
+
+    /**
+     * Parses an ISO date like {@code 2023-01-15} as the start of that day in GMT,
+     * the same as {@code LocalDate.parse(s).atStartOfDay(ZoneId.of("GMT")).withFixedOffsetZone()}.
+     */
+    public static ZonedDateTime parseIsoDateAtStartOfDayGmt(CharSequence s, int start, int end) {
+        if (end - start == 10 && s.charAt(start + 4) == '-' && s.charAt(start + 7) == '-') {
+            int year = parse4Digits(s, start);
+            int month = parse2Digits(s, start + 5);
+            int day = parse2Digits(s, start + 8);
+            if (year >= 0 && month >= 1 && month <= 12 && isValidDay(year, month, day)) {
+                return ZonedDateTime.of(year, month, day, 0, 0, 0, 0, GMT_OFFSET);
+            }
+        }
+        return LocalDate.parse(s.subSequence(start, end)).atStartOfDay(ZoneId.of(GMT)).withFixedOffsetZone();
+    }
+
+    public static ZonedDateTime parseIsoDateAtStartOfDayGmt(String s) {
+        return parseIsoDateAtStartOfDayGmt(s, 0, s.length());
+    }
+
+    private static boolean isValidDay(int year, int month, int day) {
+        return day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * Returns the month number for an English month abbreviation, or -1.
+     */
+    private static int parseMonth(CharSequence s, int start) {
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (regionMatches(s, start, MONTHS[i])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence s, int start, String expected) {
+        for (int i = 0, n = expected.length(); i < n; i++) {
+            if (s.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of two ASCII digits, or -1.
+     */
+    private static int parse2Digits(CharSequence s, int start) {
+        int d1 = s.charAt(start) - '0';
+        int d2 = s.charAt(start + 1) - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9) {
+            return -1;
+        }
+        return d1 * 10 + d2;
+    }
+
+    /**
+     * Returns the value of four ASCII digits, or -1.
+     */
+    private static int parse4Digits(CharSequence s, int start) {
+        int hi = parse2Digits(s, start);
+        int lo = parse2Digits(s, start + 2);
+        if (hi < 0 || lo < 0) {
+            return -1;
+        }
+        return hi * 100 + lo;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.Transaction;
+
+import java.io.Serial;
+import java.math.BigDecimal;
+
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseDecimal;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseMoney;
+
+/**
+ * Transaction whose amounts are kept as offsets into the source text and parsed on first access,
+ * so that consumers reading only dates, types and symbols never pay for decimal parsing.
+ * The source text is released as soon as all amounts have been read or set;
+ * if it is a view of the whole extracted document, the document text stays reachable until then.
+ * <p>
+ * Accessors of the amounts are synchronized because the first read mutates the object.
+ * The object is serialized as a plain {@link Transaction}.
+ */
+class LazyDecimalTransaction extends Transaction {
+
+    private static final long NONE = -1;
+
+    private transient CharSequence source;
+
+    private transient long quantityRange = NONE;
+
+    private transient long priceRange = NONE;
+
+    private transient long valueRange = NONE;
+
+    private transient long feesRange = NONE;
+
+    private transient long commissionRange = NONE;
+
+    void setSource(CharSequence source) {
+        this.source = source;
+    }
+
+    synchronized void setQuantityRange(int start, int end) {
+        quantityRange = range(start, end);
+    }
+
+    synchronized void setPriceRange(int start, int end) {
+        priceRange = range(start, end);
+    }
+
+    synchronized void setValueRange(int start, int end) {
+        valueRange = range(start, end);
+    }
+
+    synchronized void setFeesRange(int start, int end) {
+        feesRange = range(start, end);
+    }
+
+    synchronized void setCommissionRange(int start, int end) {
+        commissionRange = range(start, end);
+    }
+
+    @Override
+    public synchronized BigDecimal getQuantity() {
+        if (quantityRange != NONE) {
+            super.setQuantity(parseDecimal(source, start(quantityRange), end(quantityRange)));
+            quantityRange = NONE;
+            releaseSourceIfResolved();
+        }
+        return super.getQuantity();
+    }
+
+    @Override
+    public synchronized void setQuantity(BigDecimal quantity) {
+        quantityRange = NONE;
+        super.setQuantity(quantity);
+    }
+
+    @Override
+    public synchronized BigDecimal getPrice() {
+        if (priceRange != NONE) {
+            super.setPrice(parseMoney(source, start(priceRange), end(priceRange)));
+            priceRange = NONE;
+            releaseSourceIfResolved();
+        }
+        return super.getPrice();
+    }
+
+    @Override
+    public synchronized void setPrice(BigDecimal price) {
+        priceRange = NONE;
+        super.setPrice(price);
+    }
+
+    @Override
+    public synchronized BigDecimal getValue() {
+        if (valueRange != NONE) {
+            super.setValue(parseMoney(source, start(valueRange), end(valueRange)));
+            valueRange = NONE;
+            releaseSourceIfResolved();
+        }
+        return super.getValue();
+    }
+
+    @Override
+    public synchronized void setValue(BigDecimal value) {
+        valueRange = NONE;
+        super.setValue(value);
+    }
+
+    @Override
+    public synchronized BigDecimal getFees() {
+        if (feesRange != NONE) {
+            super.setFees(parseMoney(source, start(feesRange), end(feesRange)));
+            feesRange = NONE;
+            releaseSourceIfResolved();
+        }
+        return super.getFees();
+    }
+
+    @Override
+    public synchronized void setFees(BigDecimal fees) {
+        feesRange = NONE;
+        super.setFees(fees);
+    }
+
+    @Override
+    public synchronized BigDecimal getCommission() {
+        if (commissionRange != NONE) {
+            super.setCommission(parseMoney(source, start(commissionRange), end(commissionRange)));
+            commissionRange = NONE;
+            releaseSourceIfResolved();
+        }
+        return super.getCommission();
+    }
+
+    @Override
+    public synchronized void setCommission(BigDecimal commission) {
+        commissionRange = NONE;
+        super.setCommission(commission);
+    }
+
+    @Override
+    public String toString() {
+        resolveAll();
+        return super.toString();
+    }
+
+    @Serial
+    private Object writeReplace() {
+        resolveAll();
+        Transaction transaction = new Transaction();
+        transaction.setDate(getDate());
+        transaction.setType(getType());
+        transaction.setSymbol(getSymbol());
+        transaction.setCountry(getCountry());
+        transaction.setQuantity(getQuantity());
+        transaction.setPrice(getPrice());
+        transaction.setValue(getValue());
+        transaction.setGrossAmount(getGrossAmount());
+        transaction.setWithholdingTax(getWithholdingTax());
+        transaction.setSide(getSide());
+        transaction.setFees(getFees());
+        transaction.setCommission(getCommission());
+        transaction.setSecurityName(getSecurityName());
+        transaction.setIsin(getIsin());
+        transaction.setCurrency(getCurrency());
+        return transaction;
+    }
+
+    private void resolveAll() {
+        getQuantity();
+        getPrice();
+        getValue();
+        getFees();
+        getCommission();
+    }
+
+    private void releaseSourceIfResolved() {
+        if (quantityRange == NONE && priceRange == NONE && valueRange == NONE && feesRange == NONE && commissionRange == NONE) {
+            source = null;
+        }
+    }
+
+    /**
+     * @return start and end packed into a long or {@link #NONE} if the start is negative,
+     * i.e. an optional matcher group did not participate in the match
+     */
+    private static long range(int start, int end) {
+        return start < 0 ? NONE : ((long) start << Integer.SIZE) | end;
+    }
+
+    private static int start(long range) {
+        return (int) (range >>> Integer.SIZE);
+    }
+
+    private static int end(long range) {
+        return (int) range;
+    }
+}
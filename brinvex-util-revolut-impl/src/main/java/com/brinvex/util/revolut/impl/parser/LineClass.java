@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+/**
+ * Candidate class of a trimmed statement line as determined by {@link LineClassifier}.
+ * The class only tells which pattern or line parser is worth trying,
+ * the line parsers still verify the complete line.
+ */
+public enum LineClass {
+    ACCOUNT_NAME,
+    ACCOUNT_NUMBER,
+    PERIOD,
+    CASH_VALUE,
+    STOCKS_VALUE,
+    TOTAL,
+    EUR_ACCOUNT_SUMMARY,
+    USD_ACCOUNT_SUMMARY,
+    ACCOUNT_SUMMARY_COLUMNS,
+    HOLDINGS_SECTION_START,
+    HOLDINGS_HEADER,
+    TRANSACTIONS_SECTION_START,
+    TABLE_HEADER,
+    USD_PROFIT_AND_LOSS,
+    PROFIT_AND_LOSS_SECTION_START,
+    FOOTER,
+    INTERNAL_TRANSFER,
+    DATED_ROW,
+    OTHER,
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.contains;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.startsWith;
+
+/**
+ * Classifies trimmed statement lines by their first characters, so that the statement parsers
+ * try at most one candidate pattern per line instead of running every line through all of them.
+ * <p>
+ * Lines are dispatched on the first character to a short list of prefixes.
+ * Lines no prefix matches are checked for the few phrases which may occur anywhere in a line,
+ * and lines starting with a digit are reported as {@link LineClass#DATED_ROW}.
+ */
+public class LineClassifier {
+
+    private static class Rule {
+
+        private final String prefix;
+
+        private final LineClass lineClass;
+
+        private Rule(String prefix, LineClass lineClass) {
+            this.prefix = prefix;
+            this.lineClass = lineClass;
+        }
+    }
+
+    private static class LazyHolder {
+
+        /**
+         * Rules indexed by the first character of the line, in the order they are tried.
+         */
+        private static final Rule[][] PREFIX_RULES = createPrefixRules(
+                new Rule("Account name", LineClass.ACCOUNT_NAME),
+                new Rule("Account number", LineClass.ACCOUNT_NUMBER),
+                new Rule("Period", LineClass.PERIOD),
+                new Rule("Cash value", LineClass.CASH_VALUE),
+                new Rule("Stocks", LineClass.STOCKS_VALUE),
+                new Rule("Total", LineClass.TOTAL),
+                new Rule("EUR Account summary", LineClass.EUR_ACCOUNT_SUMMARY),
+                new Rule("USD Account summary", LineClass.USD_ACCOUNT_SUMMARY),
+                new Rule("USD Profit and Loss Statement", LineClass.USD_PROFIT_AND_LOSS),
+                new Rule("USD", LineClass.TRANSACTIONS_SECTION_START),
+                new Rule("Transactions", LineClass.TRANSACTIONS_SECTION_START),
+                new Rule("Portfolio", LineClass.HOLDINGS_SECTION_START),
+                new Rule("Symbol", LineClass.HOLDINGS_HEADER),
+                new Rule("Date", LineClass.TABLE_HEADER),
+                new Rule("Dividends", LineClass.PROFIT_AND_LOSS_SECTION_START),
+                new Rule("Other income & fees", LineClass.PROFIT_AND_LOSS_SECTION_START),
+                new Rule("This statement is provided by Revolut Securities Europe UAB", LineClass.FOOTER),
+                new Rule("Get help directly In app", LineClass.FOOTER),
+                new Rule("Report lost or stolen card", LineClass.FOOTER)
+        );
+
+        private static final Rule[] CONTAINS_RULES = {
+                new Rule("Transfer from Revolut Bank UAB to Revolut Securities Europe UAB", LineClass.INTERNAL_TRANSFER),
+                new Rule("Transfer from Revolut Trading Ltd to Revolut Securities Europe UAB", LineClass.INTERNAL_TRANSFER),
+                new Rule("Starting", LineClass.ACCOUNT_SUMMARY_COLUMNS),
+        };
+
+        private static Rule[][] createPrefixRules(Rule... rules) {
+            Rule[][] rulesByFirstChar = new Rule[128][];
+            for (Rule rule : rules) {
+                char c = rule.prefix.charAt(0);
+                Rule[] bucket = rulesByFirstChar[c];
+                bucket = bucket == null ? new Rule[1] : Arrays.copyOf(bucket, bucket.length + 1);
+                bucket[bucket.length - 1] = rule;
+                rulesByFirstChar[c] = bucket;
+            }
+            return rulesByFirstChar;
+        }
+    }
+
+    private final BiConsumer<LineClass, String> listener;
+
+    public LineClassifier() {
+        this(null);
+    }
+
+    /**
+     * @param listener notified about the class of every classified line, intended for diagnostics
+     */
+    public LineClassifier(BiConsumer<LineClass, String> listener) {
+        this.listener = listener;
+    }
+
+    public LineClass classify(CharSequence line) {
+        LineClass lineClass = classifyLine(line);
+        if (listener != null) {
+            listener.accept(lineClass, line.toString());
+        }
+        return lineClass;
+    }
+
+    private static LineClass classifyLine(CharSequence line) {
+        if (line.isEmpty()) {
+            return LineClass.OTHER;
+        }
+        char c = line.charAt(0);
+        if (c < 128) {
+            Rule[] bucket = LazyHolder.PREFIX_RULES[c];
+            if (bucket != null) {
+                for (Rule rule : bucket) {
+                    if (startsWith(line, rule.prefix, 0)) {
+                        return rule.lineClass;
+                    }
+                }
+            }
+        }
+        for (Rule rule : LazyHolder.CONTAINS_RULES) {
+            if (contains(line, rule.prefix)) {
+                return rule.lineClass;
+            }
+        }
+        return c >= '0' && c <= '9' ? LineClass.DATED_ROW : LineClass.OTHER;
+    }
+
+}
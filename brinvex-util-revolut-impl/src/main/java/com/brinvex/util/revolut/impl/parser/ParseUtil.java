@@ -16,10 +16,122 @@
 package com.brinvex.util.revolut.impl.parser;
 
 import java.math.BigDecimal;
+import java.util.regex.Matcher;
 
 class ParseUtil {
 
-    public static BigDecimal parseMoney(String s) {
+    /**
+     * Number of decimal digits which always fit into a long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    public static BigDecimal parseMoney(CharSequence s) {
+        if (s == null) {
+            return null;
+        }
+        return parseMoney(s, 0, s.length());
+    }
+
+    public static BigDecimal parseDecimal(CharSequence s) {
+        if (s == null) {
+            return null;
+        }
+        return parseDecimal(s, 0, s.length());
+    }
+
+    /**
+     * Parses the given matcher group of the input the matcher was created for.
+     * Returns null if the group did not participate in the match.
+     */
+    public static BigDecimal parseMoney(CharSequence input, Matcher matcher, String group) {
+        int start = matcher.start(group);
+        return start < 0 ? null : parseMoney(input, start, matcher.end(group));
+    }
+
+    public static BigDecimal parseDecimal(CharSequence input, Matcher matcher, String group) {
+        int start = matcher.start(group);
+        return start < 0 ? null : parseDecimal(input, start, matcher.end(group));
+    }
+
+    /**
+     * Parses an amount like {@code -US$1,234.56} in a single scan without creating intermediate Strings.
+     * Currency prefixes and thousands separators are skipped and the unscaled value is accumulated in a long.
+     * Any input the fast path does not understand, or which does not fit into a long,
+     * goes through {@link #parseMoneyFallback(String)}, so the result and the exceptions are the same
+     * as with the String based implementation.
+     */
+    public static BigDecimal parseMoney(CharSequence s, int start, int end) {
+        return parse(s, start, end, true);
+    }
+
+    /**
+     * Same as {@link #parseMoney(CharSequence, int, int)} but only thousands separators are skipped.
+     */
+    public static BigDecimal parseDecimal(CharSequence s, int start, int end) {
+        return parse(s, start, end, false);
+    }
+
+    private static BigDecimal parse(CharSequence s, int start, int end, boolean money) {
+        boolean negative = false;
+        boolean signAllowed = true;
+        boolean dotSeen = false;
+        boolean digitSeen = false;
+        boolean whitespaceSeen = false;
+        boolean blank = true;
+        int significantDigits = 0;
+        int scale = 0;
+        long unscaled = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (unscaled != 0 || c != '0') {
+                    if (++significantDigits > MAX_LONG_DIGITS) {
+                        return parseFallback(s, start, end, money);
+                    }
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (dotSeen) {
+                    scale++;
+                }
+                digitSeen = true;
+                signAllowed = false;
+                blank = false;
+            } else if (c == ',') {
+                blank = false;
+            } else if (c == '.' && !dotSeen) {
+                dotSeen = true;
+                signAllowed = false;
+                blank = false;
+            } else if ((c == '-' || c == '+') && signAllowed) {
+                negative = c == '-';
+                signAllowed = false;
+                blank = false;
+            } else if (money && c == '$') {
+                blank = false;
+            } else if (money && c == 'U' && i + 2 < end && s.charAt(i + 1) == 'S' && s.charAt(i + 2) == '$') {
+                i += 2;
+                blank = false;
+            } else if (Character.isWhitespace(c)) {
+                whitespaceSeen = true;
+            } else {
+                return parseFallback(s, start, end, money);
+            }
+        }
+        if (blank) {
+            return null;
+        }
+        if (whitespaceSeen || !digitSeen) {
+            return parseFallback(s, start, end, money);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static BigDecimal parseFallback(CharSequence s, int start, int end, boolean money) {
+        String str = s.subSequence(start, end).toString();
+        return money ? parseMoneyFallback(str) : parseDecimalFallback(str);
+    }
+
+    static BigDecimal parseMoneyFallback(String s) {
         if (s == null || s.isBlank()) {
             return null;
         }
@@ -30,7 +142,7 @@ class ParseUtil {
         return new BigDecimal(normalized);
     }
 
-    public static BigDecimal parseDecimal(String s) {
+    static BigDecimal parseDecimalFallback(String s) {
         if (s == null || s.isBlank()) {
             return null;
         }
@@ -38,5 +150,105 @@ class ParseUtil {
         return new BigDecimal(normalized);
     }
 
+    /**
+     * Same as {@link String#trim()} but returns a {@link CharSequence#subSequence(int, int)} of the input,
+     * so a line view is trimmed without copying. Null is treated as an empty line.
+     */
+    public static CharSequence trim(CharSequence s) {
+        if (s == null) {
+            return "";
+        }
+        if (s instanceof String) {
+            return ((String) s).trim();
+        }
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (start < end && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start > 0 || end < s.length() ? s.subSequence(start, end) : s;
+    }
+
+    /**
+     * Same as {@link String#isBlank()}.
+     */
+    public static boolean isBlank(CharSequence s) {
+        if (s instanceof String) {
+            return ((String) s).isBlank();
+        }
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (!Character.isWhitespace(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link String#startsWith(String, int)}.
+     */
+    public static boolean startsWith(CharSequence s, String prefix, int offset) {
+        if (s instanceof String) {
+            return ((String) s).startsWith(prefix, offset);
+        }
+        int prefixLength = prefix.length();
+        if (offset < 0 || offset > s.length() - prefixLength) {
+            return false;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (s.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link String#contains(CharSequence)}.
+     */
+    public static boolean contains(CharSequence s, String target) {
+        if (s instanceof String) {
+            return ((String) s).contains(target);
+        }
+        for (int i = 0, last = s.length() - target.length(); i <= last; i++) {
+            if (startsWith(s, target, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link String#indexOf(int, int)} for a char.
+     */
+    public static int indexOf(CharSequence s, char c, int fromIndex) {
+        if (s instanceof String) {
+            return ((String) s).indexOf(c, fromIndex);
+        }
+        for (int i = Math.max(fromIndex, 0), n = s.length(); i < n; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link String#lastIndexOf(int, int)} for a char.
+     */
+    public static int lastIndexOf(CharSequence s, char c, int fromIndex) {
+        if (s instanceof String) {
+            return ((String) s).lastIndexOf(c, fromIndex);
+        }
+        for (int i = Math.min(fromIndex, s.length() - 1); i >= 0; i--) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
 }
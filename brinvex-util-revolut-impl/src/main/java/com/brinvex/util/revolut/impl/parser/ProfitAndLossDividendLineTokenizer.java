@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionType;
+
+import java.math.BigDecimal;
+
+import static com.brinvex.util.revolut.impl.parser.DateTimeParseUtil.parseIsoDateAtStartOfDayGmt;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.indexOf;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.lastIndexOf;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseMoney;
+
+/**
+ * Regex-free parser of canonical P&L dividend rows, i.e. rows with single spaces between tokens:
+ * <pre>
+ * yyyy-MM-dd symbol security name ISIN country US$gross US$tax US$net
+ * yyyy-MM-dd symbol security name ISIN country US$gross - US$net
+ * yyyy-MM-dd symbol security name ISIN country US$gross
+ * </pre>
+ * Amounts are read from the end of the row, which also decides the layout,
+ * then ISIN and country are taken from the right and the security name is what remains.
+ * In the last layout the withholding tax and the net amount are left null,
+ * they are printed on the following lines.
+ * Rows of any other shape are rejected, so that the regex based parser can handle them.
+ */
+class ProfitAndLossDividendLineTokenizer {
+
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+
+    private static final int ISIN_LENGTH = 12;
+
+    private static final int COUNTRY_LENGTH = 2;
+
+    private final SymbolTable symbolTable;
+
+    ProfitAndLossDividendLineTokenizer() {
+        this(new SymbolTable());
+    }
+
+    ProfitAndLossDividendLineTokenizer(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    public Transaction tryParse(CharSequence line) {
+        int length = line.length();
+        if (length <= DATE_LENGTH + 1 || !isIsoDate(line) || line.charAt(DATE_LENGTH) != ' ') {
+            return null;
+        }
+
+        //Up to three tokens are read from right to left: net, tax, gross
+        int e1 = length;
+        int s1 = tokenStart(line, e1);
+        if (s1 <= 0 || !isUsMoney(line, s1, e1)) {
+            return null;
+        }
+        int e2 = s1 - 1;
+        int s2 = tokenStart(line, e2);
+        int e3 = s2 - 1;
+        int s3 = s2 > 0 ? tokenStart(line, e3) : -1;
+
+        int grossStart;
+        int grossEnd;
+        int taxStart = -1;
+        int taxEnd = -1;
+        int netStart = -1;
+        int netEnd = -1;
+        int restEnd;
+        if (s3 > 0 && isUsMoney(line, s3, e3) && isUsMoney(line, s2, e2)) {
+            grossStart = s3;
+            grossEnd = e3;
+            taxStart = s2;
+            taxEnd = e2;
+            netStart = s1;
+            netEnd = e1;
+            restEnd = s3 - 1;
+        } else if (s3 > 0 && isUsMoney(line, s3, e3) && e2 - s2 == 1 && line.charAt(s2) == '-') {
+            grossStart = s3;
+            grossEnd = e3;
+            netStart = s1;
+            netEnd = e1;
+            restEnd = s3 - 1;
+        } else {
+            grossStart = s1;
+            grossEnd = e1;
+            restEnd = s1 - 1;
+        }
+
+        int countryStart = tokenStart(line, restEnd);
+        if (countryStart <= 0 || restEnd - countryStart != COUNTRY_LENGTH || !isNonWhitespace(line, countryStart, restEnd)) {
+            return null;
+        }
+        int isinEnd = countryStart - 1;
+        int isinStart = tokenStart(line, isinEnd);
+        if (isinStart <= 0 || isinEnd - isinStart != ISIN_LENGTH || !isNonWhitespace(line, isinStart, isinEnd)) {
+            return null;
+        }
+        int symbolStart = DATE_LENGTH + 1;
+        int symbolEnd = indexOf(line, ' ', symbolStart);
+        if (symbolEnd <= symbolStart || !isNonWhitespace(line, symbolStart, symbolEnd)) {
+            return null;
+        }
+        int nameStart = symbolEnd + 1;
+        int nameEnd = isinStart - 1;
+        if (nameStart >= nameEnd || isWhitespace(line.charAt(nameStart))) {
+            return null;
+        }
+
+        Transaction dividendTran = new Transaction();
+        dividendTran.setCurrency(Currency.USD);
+        dividendTran.setType(TransactionType.DIVIDEND);
+        dividendTran.setFees(null);
+        dividendTran.setCommission(null);
+        dividendTran.setDate(parseIsoDateAtStartOfDayGmt(line, 0, DATE_LENGTH));
+        dividendTran.setSymbol(symbolTable.intern(line, symbolStart, symbolEnd));
+        dividendTran.setSecurityName(symbolTable.intern(line, nameStart, nameEnd));
+        dividendTran.setIsin(symbolTable.intern(line, isinStart, isinEnd));
+        dividendTran.setCountry(symbolTable.intern(line, countryStart, restEnd));
+        dividendTran.setQuantity(null);
+        dividendTran.setPrice(null);
+        //The "US" prefix is not part of the amount
+        dividendTran.setGrossAmount(parseMoney(line, grossStart + 2, grossEnd));
+        if (netStart >= 0) {
+            dividendTran.setWithholdingTax(taxStart >= 0 ? parseMoney(line, taxStart + 2, taxEnd) : BigDecimal.ZERO);
+            dividendTran.setValue(parseMoney(line, netStart + 2, netEnd));
+        }
+        return dividendTran;
+    }
+
+    /**
+     * Returns the start of the space delimited token ending at {@code end}.
+     */
+    private static int tokenStart(CharSequence line, int end) {
+        return end <= 0 ? -1 : lastIndexOf(line, ' ', end - 1) + 1;
+    }
+
+    private static boolean isIsoDate(CharSequence line) {
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            char c = line.charAt(i);
+            if (i == 4 || i == 7) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matches {@code US-?\$(\d+,)*\d+(\.\d+)?}.
+     */
+    private static boolean isUsMoney(CharSequence line, int start, int end) {
+        int i = start;
+        if (end - i < 4 || line.charAt(i) != 'U' || line.charAt(i + 1) != 'S') {
+            return false;
+        }
+        i += 2;
+        if (line.charAt(i) == '-') {
+            i++;
+        }
+        if (i >= end || line.charAt(i) != '$') {
+            return false;
+        }
+        i++;
+        boolean digitRequired = true;
+        boolean dotSeen = false;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitRequired = false;
+            } else if (c == ',' && !digitRequired && !dotSeen) {
+                digitRequired = true;
+            } else if (c == '.' && !digitRequired && !dotSeen) {
+                digitRequired = true;
+                dotSeen = true;
+            } else {
+                return false;
+            }
+        }
+        return !digitRequired;
+    }
+
+    private static boolean isNonWhitespace(CharSequence line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (isWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same characters as the regex {@code \s}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -22,16 +22,19 @@ import com.brinvex.util.revolut.api.model.TransactionType;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+import static com.brinvex.util.revolut.impl.parser.DateTimeParseUtil.parseIsoDateAtStartOfDayGmt;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.isBlank;
 import static com.brinvex.util.revolut.impl.parser.ParseUtil.parseMoney;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.startsWith;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.trim;
 
 @SuppressWarnings("DuplicatedCode")
 public class ProfitAndLossStatementParser {
@@ -90,36 +93,75 @@ public class ProfitAndLossStatementParser {
         private static final DateTimeFormatter PERIOD_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy");
     }
 
-    public PortfolioPeriod parseProfitAndLossStatement(List<String> lines) {
+    /**
+     * Table header repeated on every page, it is removed before the dividend rows are parsed.
+     */
+    private static final String TABLE_HEADER_LINE = "Date Symbol Security name ISIN Country Gross Amount Withholding Tax Net Amount";
+
+    private final ProfitAndLossDividendLineTokenizer dividendLineTokenizer;
+
+    private final LineClassifier lineClassifier;
+
+    private final SymbolTable symbolTable;
+
+    public ProfitAndLossStatementParser() {
+        this(new LineClassifier());
+    }
+
+    public ProfitAndLossStatementParser(LineClassifier lineClassifier) {
+        this(lineClassifier, new SymbolTable());
+    }
+
+    /**
+     * @param symbolTable canonicalizes symbols, security names, ISINs and countries of dividend rows
+     */
+    public ProfitAndLossStatementParser(SymbolTable symbolTable) {
+        this(new LineClassifier(), symbolTable);
+    }
+
+    public ProfitAndLossStatementParser(LineClassifier lineClassifier, SymbolTable symbolTable) {
+        this.lineClassifier = lineClassifier;
+        this.symbolTable = symbolTable;
+        this.dividendLineTokenizer = new ProfitAndLossDividendLineTokenizer(symbolTable);
+    }
+
+    public PortfolioPeriod parseProfitAndLossStatement(List<? extends CharSequence> lines) {
 
         String accountName = null;
         String accountNumber = null;
         LocalDate periodFrom = null;
         LocalDate periodTo = null;
-        for (String line : lines) {
-            line = stripToEmpty(line);
-            if (line.isBlank()) {
+        for (CharSequence line : lines) {
+            line = trim(line);
+            if (isBlank(line)) {
                 continue;
             }
-            {
-                Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    accountName = matcher.group("accountName");
+            switch (lineClassifier.classify(line)) {
+                case ACCOUNT_NAME: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        accountName = matcher.group("accountName");
+                    }
+                    break;
                 }
-            }
-            {
-                Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    accountNumber = matcher.group("accountNumber");
+                case ACCOUNT_NUMBER: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        accountNumber = matcher.group("accountNumber");
+                    }
+                    break;
                 }
-            }
-            {
-                Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    periodFrom = LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER);
-                    periodTo = LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER);
-                    continue;
+                case PERIOD: {
+                    Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        periodFrom = LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER);
+                        periodTo = LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER);
+                        continue;
+                    }
+                    break;
                 }
+                default:
+                    break;
             }
             if (accountName != null && accountNumber != null && periodFrom != null && periodTo != null) {
                 break;
@@ -150,118 +192,144 @@ public class ProfitAndLossStatementParser {
         return portfolioPeriod;
     }
 
-    private List<Transaction> parseProfitAndLossStatementDividendTransactions(List<String> lines) {
+    private List<Transaction> parseProfitAndLossStatementDividendTransactions(List<? extends CharSequence> lines) {
         List<Transaction> dividends = new ArrayList<>();
         boolean usdLinesStarted = false;
         boolean dividendsLinesStarted = false;
-        lines = lines.stream()
-                .filter(l -> !l.equals("Date Symbol Security name ISIN Country Gross Amount Withholding Tax Net Amount"))
-                .collect(Collectors.toList());
-        for (int i = 0, linesSize = lines.size(); i < linesSize; i++) {
-            String line = stripToEmpty(lines.get(i));
+        Iterator<? extends CharSequence> lineIterator = lines.iterator();
+        for (int lineIdx = 0; lineIterator.hasNext(); ) {
+            CharSequence line = lineIterator.next();
+            if (TABLE_HEADER_LINE.contentEquals(line)) {
+                continue;
+            }
+            lineIdx++;
+            line = trim(line);
             try {
-                if (line.isBlank()) {
+                if (isBlank(line)) {
                     continue;
                 }
+                LineClass lineClass = lineClassifier.classify(line);
                 if (!usdLinesStarted) {
-                    if (line.equals("USD Profit and Loss Statement")) {
+                    if (lineClass == LineClass.USD_PROFIT_AND_LOSS && "USD Profit and Loss Statement".contentEquals(line)) {
                         usdLinesStarted = true;
                     }
                     continue;
                 }
                 if (!dividendsLinesStarted) {
-                    if (LazyHolder.TRANSACTION_SECTION_START_PATTERN.matcher(line).matches()) {
+                    if (lineClass == LineClass.PROFIT_AND_LOSS_SECTION_START
+                            && LazyHolder.TRANSACTION_SECTION_START_PATTERN.matcher(line).matches()) {
                         dividendsLinesStarted = true;
                     }
                     continue;
                 }
-                if (LazyHolder.TRANSACTION_HEADER_PATTERN.matcher(line).matches()) {
+                if (lineClass == LineClass.TABLE_HEADER && LazyHolder.TRANSACTION_HEADER_PATTERN.matcher(line).matches()) {
                     continue;
                 }
-                if (LazyHolder.TRANSACTION_SECTION_END_PATTERN.matcher(line).matches()) {
+                if (lineClass == LineClass.TOTAL && LazyHolder.TRANSACTION_SECTION_END_PATTERN.matcher(line).matches()) {
                     break;
                 }
 
-                Transaction dividendTran = new Transaction();
-                dividendTran.setCurrency(Currency.USD);
-                dividendTran.setType(TransactionType.DIVIDEND);
-                dividendTran.setFees(null);
-                dividendTran.setCommission(null);
+                Transaction dividendTran = dividendLineTokenizer.tryParse(line);
+                if (dividendTran == null) {
+                    dividendTran = parseDividendStartLineByRegex(line);
+                }
                 dividends.add(dividendTran);
 
-                Matcher matcher = LazyHolder.DIVIDEND_START_LINE_PATTERN1.matcher(line);
-                if (matcher.find()) {
-                    dividendTran.setDate(LocalDate.parse(matcher.group("date")).atStartOfDay(ZoneId.of("GMT")).withFixedOffsetZone());
-                    dividendTran.setSymbol(matcher.group("symbol"));
-                    dividendTran.setSecurityName(matcher.group("securityName"));
-                    dividendTran.setIsin(matcher.group("isin"));
-                    dividendTran.setCountry(matcher.group("country"));
-                    dividendTran.setQuantity(null);
-                    dividendTran.setPrice(null);
-                    dividendTran.setGrossAmount(parseMoney(matcher.group("grossAmount")));
-                    dividendTran.setWithholdingTax(parseMoney(matcher.group("tax")));
-                    dividendTran.setValue(parseMoney(matcher.group("netAmount")));
-
-                    i = i + 3;
-
+                if (dividendTran.getValue() != null) {
+                    skipLines(lineIterator, 3);
+                    lineIdx += 3;
                 } else {
-                    matcher = LazyHolder.DIVIDEND_START_LINE_PATTERN2.matcher(line);
-                    if (matcher.find()) {
-                        dividendTran.setDate(LocalDate.parse(matcher.group("date")).atStartOfDay(ZoneId.of("GMT")).withFixedOffsetZone());
-                        dividendTran.setSymbol(matcher.group("symbol"));
-                        dividendTran.setSecurityName(matcher.group("securityName"));
-                        dividendTran.setIsin(matcher.group("isin"));
-                        dividendTran.setCountry(matcher.group("country"));
-                        dividendTran.setQuantity(null);
-                        dividendTran.setPrice(null);
-                        dividendTran.setGrossAmount(parseMoney(matcher.group("grossAmount")));
+                    //Withholding tax and net amount are printed on the following lines
+                    CharSequence taxLine;
+                    CharSequence valueLine;
+                    nextLine(lineIterator);
+                    CharSequence line2 = nextLine(lineIterator);
+                    if (startsWith(line2, "Rate:", 0)) {
+                        taxLine = nextLine(lineIterator);
+                        nextLine(lineIterator);
+                        valueLine = nextLine(lineIterator);
+                        skipLines(lineIterator, 1);
+                    } else {
+                        taxLine = line2;
+                        nextLine(lineIterator);
+                        valueLine = nextLine(lineIterator);
+                        skipLines(lineIterator, 2);
+                    }
+                    lineIdx += 6;
+                    if (isBlank(taxLine) || "-".contentEquals(taxLine)) {
                         dividendTran.setWithholdingTax(BigDecimal.ZERO);
-                        dividendTran.setValue(parseMoney(matcher.group("netAmount")));
-
-                        i = i + 3;
                     } else {
-                        matcher = LazyHolder.DIVIDEND_START_LINE_PATTERN3.matcher(line);
-                        if (!matcher.find()) {
-                            throw new IllegalStateException("Pattern not found: " + line);
-                        }
-                        dividendTran.setDate(LocalDate.parse(matcher.group("date")).atStartOfDay(ZoneId.of("GMT")).withFixedOffsetZone());
-                        dividendTran.setSymbol(matcher.group("symbol"));
-                        dividendTran.setSecurityName(matcher.group("securityName"));
-                        dividendTran.setIsin(matcher.group("isin"));
-                        dividendTran.setCountry(matcher.group("country"));
-                        dividendTran.setQuantity(null);
-                        dividendTran.setPrice(null);
-                        dividendTran.setGrossAmount(parseMoney(matcher.group("grossAmount")));
-
-                        String taxLine;
-                        String valueLine;
-                        if (lines.get(i + 2).startsWith("Rate:")) {
-                            taxLine = lines.get(i + 3);
-                            valueLine = lines.get(i + 5);
-                            i = i + 6;
-                        } else {
-                            taxLine = lines.get(i + 2);
-                            valueLine = lines.get(i + 4);
-                            i = i + 6;
-                        }
-                        if (taxLine.isBlank() || taxLine.equals("-")) {
-                            dividendTran.setWithholdingTax(BigDecimal.ZERO);
-                        } else {
-                            dividendTran.setWithholdingTax(parseMoney(taxLine));
-                        }
-                        dividendTran.setValue(parseMoney(valueLine));
+                        dividendTran.setWithholdingTax(parseMoney(taxLine));
                     }
+                    dividendTran.setValue(parseMoney(valueLine));
                 }
 
             } catch (Exception e) {
-                throw new IllegalStateException(String.format("Exception while parsing %s.line: '%s'", (i + 1), line), e);
+                throw new IllegalStateException(String.format("Exception while parsing %s.line: '%s'", lineIdx, line), e);
             }
         }
         return dividends;
     }
 
-    private String stripToEmpty(String s) {
-        return s == null ? "" : s.trim();
+    /**
+     * Parses a dividend row of any layout the regular expressions accept.
+     * The withholding tax and the net amount are left null if they are printed on the following lines.
+     */
+    Transaction parseDividendStartLineByRegex(CharSequence line) {
+        Transaction dividendTran = new Transaction();
+        dividendTran.setCurrency(Currency.USD);
+        dividendTran.setType(TransactionType.DIVIDEND);
+        dividendTran.setFees(null);
+        dividendTran.setCommission(null);
+
+        Matcher matcher = LazyHolder.DIVIDEND_START_LINE_PATTERN1.matcher(line);
+        if (matcher.find()) {
+            dividendTran.setWithholdingTax(parseMoney(line, matcher, "tax"));
+            dividendTran.setValue(parseMoney(line, matcher, "netAmount"));
+        } else {
+            matcher = LazyHolder.DIVIDEND_START_LINE_PATTERN2.matcher(line);
+            if (matcher.find()) {
+                dividendTran.setWithholdingTax(BigDecimal.ZERO);
+                dividendTran.setValue(parseMoney(line, matcher, "netAmount"));
+            } else {
+                matcher = LazyHolder.DIVIDEND_START_LINE_PATTERN3.matcher(line);
+                if (!matcher.find()) {
+                    throw new IllegalStateException("Pattern not found: " + line);
+                }
+            }
+        }
+        dividendTran.setDate(parseIsoDateAtStartOfDayGmt(line, matcher.start("date"), matcher.end("date")));
+        dividendTran.setSymbol(symbolTable.intern(line, matcher, "symbol"));
+        dividendTran.setSecurityName(symbolTable.intern(line, matcher, "securityName"));
+        dividendTran.setIsin(symbolTable.intern(line, matcher, "isin"));
+        dividendTran.setCountry(symbolTable.intern(line, matcher, "country"));
+        dividendTran.setQuantity(null);
+        dividendTran.setPrice(null);
+        dividendTran.setGrossAmount(parseMoney(line, matcher, "grossAmount"));
+        return dividendTran;
+    }
+
+    /**
+     * Returns the next line which is not a repeated table header.
+     */
+    private static CharSequence nextLine(Iterator<? extends CharSequence> lines) {
+        while (true) {
+            CharSequence line = lines.next();
+            if (!TABLE_HEADER_LINE.contentEquals(line)) {
+                return line;
+            }
+        }
+    }
+
+    /**
+     * Skips up to {@code count} lines which are not repeated table headers.
+     */
+    private static void skipLines(Iterator<? extends CharSequence> lines, int count) {
+        for (int i = 0; i < count && lines.hasNext(); ) {
+            if (!TABLE_HEADER_LINE.contentEquals(lines.next())) {
+                i++;
+            }
+        }
     }
 
 }
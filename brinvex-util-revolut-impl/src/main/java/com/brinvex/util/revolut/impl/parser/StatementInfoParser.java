@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.StatementInfo;
+import com.brinvex.util.revolut.api.model.StatementType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.isBlank;
+import static com.brinvex.util.revolut.impl.parser.ParseUtil.trim;
+
+@SuppressWarnings("DuplicatedCode")
+public class StatementInfoParser {
+
+    private static class LazyHolder {
+
+        private static final Pattern ACCOUNT_NAME_PATTERN = Pattern.compile(
+                "Account\\s+name\\s+(?<accountName>.+)");
+
+        private static final Pattern ACCOUNT_NUMBER_PATTERN = Pattern.compile(
+                "Account\\s+number\\s+(?<accountNumber>.+)");
+
+        private static final Pattern PERIOD_PATTERN = Pattern.compile(
+                "Period\\s+(?<periodFrom>\\d{2}\\s[A-Za-z]{3}\\s\\d{4})\\s-\\s(?<periodTo>\\d{2}\\s[A-Za-z]{3}\\s\\d{4})");
+
+        private static final DateTimeFormatter PERIOD_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy");
+    }
+
+    /**
+     * The statement header is located at the very beginning of the first page.
+     */
+    private static final int MAX_HEADER_LINES = 40;
+
+    private static final String ACCOUNT_STATEMENT_TITLE = "Account Statement";
+    private static final String PROFIT_AND_LOSS_TITLE1 = "Profit and Loss Statement";
+    private static final String PROFIT_AND_LOSS_TITLE2 = "EUR Profit and Loss Statement";
+
+    private final LineClassifier lineClassifier;
+
+    public StatementInfoParser() {
+        this(new LineClassifier());
+    }
+
+    public StatementInfoParser(LineClassifier lineClassifier) {
+        this.lineClassifier = lineClassifier;
+    }
+
+    /**
+     * Reads the statement header from the beginning of the given lines.
+     * Reading stops as soon as the header is complete or after {@link #MAX_HEADER_LINES} lines.
+     * Every line taken from the iterator is added to {@code consumedLines},
+     * so the caller can continue parsing the statement without reading it again.
+     */
+    public <L extends CharSequence> StatementInfo parseStatementInfo(Iterator<L> lines, List<? super L> consumedLines) {
+        CharSequence line0 = "";
+        CharSequence line1 = "";
+        if (lines.hasNext()) {
+            L line = lines.next();
+            consumedLines.add(line);
+            line0 = line;
+        }
+        if (lines.hasNext()) {
+            L line = lines.next();
+            consumedLines.add(line);
+            line1 = line;
+        }
+
+        StatementInfo statementInfo = new StatementInfo();
+        if (ACCOUNT_STATEMENT_TITLE.contentEquals(line0) || ACCOUNT_STATEMENT_TITLE.contentEquals(line1)) {
+            statementInfo.setType(StatementType.ACCOUNT_STATEMENT);
+        } else if (PROFIT_AND_LOSS_TITLE1.contentEquals(line0) || PROFIT_AND_LOSS_TITLE1.contentEquals(line1)
+                || (PROFIT_AND_LOSS_TITLE2.contentEquals(line0) || PROFIT_AND_LOSS_TITLE2.contentEquals(line1))
+        ) {
+            statementInfo.setType(StatementType.PROFIT_AND_LOSS_STATEMENT);
+        } else {
+            throw new IllegalArgumentException(String.format("Could not detect statement type '%s', '%s'", line0, line1));
+        }
+
+        while (consumedLines.size() < MAX_HEADER_LINES && lines.hasNext()) {
+            if (statementInfo.getAccountName() != null
+                    && statementInfo.getAccountNumber() != null
+                    && statementInfo.getPeriodFrom() != null
+            ) {
+                break;
+            }
+            L rawLine = lines.next();
+            consumedLines.add(rawLine);
+
+            CharSequence line = trim(rawLine);
+            if (isBlank(line)) {
+                continue;
+            }
+            switch (lineClassifier.classify(line)) {
+                case ACCOUNT_NAME: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NAME_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        statementInfo.setAccountName(matcher.group("accountName"));
+                    }
+                    break;
+                }
+                case ACCOUNT_NUMBER: {
+                    Matcher matcher = LazyHolder.ACCOUNT_NUMBER_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        statementInfo.setAccountNumber(matcher.group("accountNumber"));
+                    }
+                    break;
+                }
+                case PERIOD: {
+                    Matcher matcher = LazyHolder.PERIOD_PATTERN.matcher(line);
+                    if (matcher.find()) {
+                        statementInfo.setPeriodFrom(LocalDate.parse(matcher.group("periodFrom"), LazyHolder.PERIOD_DATE_FORMATTER));
+                        statementInfo.setPeriodTo(LocalDate.parse(matcher.group("periodTo"), LazyHolder.PERIOD_DATE_FORMATTER));
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return statementInfo;
+    }
+
+}
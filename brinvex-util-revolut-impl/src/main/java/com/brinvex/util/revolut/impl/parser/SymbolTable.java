@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.regex.Matcher;
+
+/**
+ * Bounded dictionary of symbols, ISINs, security names and countries shared by the statement parsers,
+ * so that a security repeated on thousands of lines is represented by a single String instance.
+ * <p>
+ * A range of a line is looked up without creating a substring; a new String is created only for a value
+ * not seen before. Every canonical value has a stable int id, which downstream code can use
+ * instead of String comparisons. Once the table is full, new values are returned without being added
+ * until the table is {@link #clear() cleared}.
+ * <p>
+ * Thread-safe. Values already in the table are found without locking, only additions are synchronized.
+ */
+public class SymbolTable {
+
+    public static final int DEFAULT_MAX_SIZE = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxSize;
+
+    /**
+     * Replaced as a whole when it grows or is cleared, entries are added to it in place under the lock.
+     */
+    private volatile Table table = new Table(new String[INITIAL_CAPACITY / 2], new int[INITIAL_CAPACITY]);
+
+    private int size;
+
+    public SymbolTable() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SymbolTable(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException(String.format("maxSize must not be negative: %s", maxSize));
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return canonical instance equal to the given value, or null for null
+     */
+    public String intern(String value) {
+        return value == null ? null : intern(value, 0, value.length(), value);
+    }
+
+    /**
+     * @return canonical instance equal to {@code input.subSequence(start, end)}
+     */
+    public String intern(CharSequence input, int start, int end) {
+        return intern(input, start, end, null);
+    }
+
+    /**
+     * Interns the given matcher group of the input the matcher was created for.
+     * Returns null if the group did not participate in the match.
+     */
+    public String intern(CharSequence input, Matcher matcher, String group) {
+        int start = matcher.start(group);
+        return start < 0 ? null : intern(input, start, matcher.end(group), null);
+    }
+
+    /**
+     * @return id of the given value or -1 if it is null or not in the table
+     */
+    public synchronized int getId(String value) {
+        return value == null ? -1 : findId(table, value, 0, value.length(), value.hashCode());
+    }
+
+    public synchronized String getValue(int id) {
+        Objects.checkIndex(id, size);
+        return table.values[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values, e.g. before a long-running service processes an unrelated set of statements.
+     * Ids and instances returned so far are not canonical anymore.
+     */
+    public synchronized void clear() {
+        table = new Table(new String[INITIAL_CAPACITY / 2], new int[INITIAL_CAPACITY]);
+        size = 0;
+    }
+
+    private String intern(CharSequence input, int start, int end, String value) {
+        int hash = hash(input, start, end);
+        Table table = this.table;
+        int id = findId(table, input, start, end, hash);
+        String canonical = id < 0 ? null : table.values[id];
+        return canonical != null ? canonical : add(input, start, end, hash, value);
+    }
+
+    private synchronized String add(CharSequence input, int start, int end, int hash, String value) {
+        Table table = this.table;
+        int id = findId(table, input, start, end, hash);
+        if (id >= 0) {
+            return table.values[id];
+        }
+        if (value == null) {
+            value = input.subSequence(start, end).toString();
+        }
+        if (size == maxSize) {
+            return value;
+        }
+        if (size == table.values.length) {
+            table = rehash(table, size);
+            this.table = table;
+        }
+        table.values[size] = value;
+        table.slots[emptySlot(table.slots, hash)] = ++size;
+        return value;
+    }
+
+    /**
+     * Also called without the lock, then an entry being added concurrently may be seen
+     * as an empty slot or a slot without value; both are reported as not found and resolved under the lock.
+     *
+     * @return id of an equal value or -1
+     */
+    private static int findId(Table table, CharSequence input, int start, int end, int hash) {
+        int[] slots = table.slots;
+        int mask = slots.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            String candidate = table.values[slot - 1];
+            if (candidate == null) {
+                return -1;
+            }
+            if (candidate.hashCode() == hash && contentEquals(candidate, input, start, end)) {
+                return slot - 1;
+            }
+        }
+    }
+
+    private static int emptySlot(int[] slots, int hash) {
+        int mask = slots.length - 1;
+        int i = spread(hash) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static Table rehash(Table table, int size) {
+        Table newTable = new Table(Arrays.copyOf(table.values, size * 2), new int[table.slots.length * 2]);
+        for (int id = 0; id < size; id++) {
+            newTable.slots[emptySlot(newTable.slots, newTable.values[id].hashCode())] = id + 1;
+        }
+        return newTable;
+    }
+
+    /**
+     * Same as {@link String#hashCode()} of the range.
+     */
+    private static int hash(CharSequence input, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean contentEquals(String s, CharSequence input, int start, int end) {
+        int length = end - start;
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != input.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Canonical values indexed by id and an open addressing hash table of ids shifted by one,
+     * zero marks an empty slot. At most half of the slots are used.
+     */
+    private static class Table {
+
+        private final String[] values;
+
+        private final int[] slots;
+
+        private Table(String[] values, int[] slots) {
+            this.values = values;
+            this.slots = slots;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.pdfreader;
+
+import com.brinvex.util.revolut.impl.cache.DiskCache;
+import com.brinvex.util.revolut.impl.cache.LruCache;
+import org.apache.pdfbox.util.Version;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link PdfReader} caching extracted lines by SHA-256 digest of the pdf bytes.
+ * There is a bounded in-memory tier and an optional size-bounded on-disk tier.
+ * On a miss the whole document is extracted at once, not page by page as streamed by {@link PdfReader},
+ * so that it is cached even if the caller stops reading the lines early, e.g. after a statement header.
+ * The lines of a document are kept as one {@link PdfText}, which {@link #readPdfText(InputStream)} returns as it is
+ * and {@link #streamPdfLineViews(InputStream)} streams as views. Only {@link #streamPdfLines(InputStream)}
+ * copies every cached line into a String.
+ */
+public class CachingPdfReader extends PdfReader {
+
+    private final LruCache<String, PdfText> memoryCache;
+
+    private final DiskCache diskCache;
+
+    /**
+     * @param maxMemoryChars      maximum total number of characters of the texts kept in memory
+     * @param diskCacheDirectory  directory of the on-disk tier or null to use the in-memory tier only
+     * @param maxDiskCacheBytes   maximum total size of the on-disk tier files
+     */
+    public CachingPdfReader(long maxMemoryChars, Path diskCacheDirectory, long maxDiskCacheBytes) {
+        this.memoryCache = new LruCache<>(maxMemoryChars, text -> text.getText().length());
+        this.diskCache = diskCacheDirectory == null ? null : new DiskCache(diskCacheDirectory, maxDiskCacheBytes);
+    }
+
+    public CachingPdfReader(long maxMemoryChars) {
+        this(maxMemoryChars, null, 0);
+    }
+
+    @Override
+    public Stream<String> streamPdfLines(InputStream pdfInputStream) {
+        return getOrExtract(pdfInputStream).getLines().stream().map(CharSequence::toString);
+    }
+
+    @Override
+    public Stream<? extends CharSequence> streamPdfLineViews(InputStream pdfInputStream) {
+        return getOrExtract(pdfInputStream).getLines().stream();
+    }
+
+    @Override
+    public PdfText readPdfText(InputStream pdfInputStream) {
+        return getOrExtract(pdfInputStream);
+    }
+
+    private PdfText getOrExtract(InputStream pdfInputStream) {
+        byte[] pdfBytes = readAllBytes(pdfInputStream);
+        String key = digest(pdfBytes);
+        PdfText text = getCached(key);
+        if (text == null) {
+            text = super.readPdfText(new ByteArrayInputStream(pdfBytes));
+            putCached(key, text);
+        }
+        return text;
+    }
+
+    private PdfText getCached(String key) {
+        PdfText text = memoryCache.get(key);
+        if (text == null && diskCache != null) {
+            byte[] bytes = diskCache.get(key);
+            if (bytes != null) {
+                List<String> lines = PdfLinesCodec.decode(bytes);
+                if (lines != null) {
+                    text = PdfText.of(lines);
+                    memoryCache.put(key, text);
+                } else {
+                    diskCache.remove(key);
+                }
+            }
+        }
+        return text;
+    }
+
+    private void putCached(String key, PdfText text) {
+        memoryCache.put(key, text);
+        if (diskCache != null) {
+            diskCache.put(key, PdfLinesCodec.encode(text.getLines()));
+        }
+    }
+
+    private static byte[] readAllBytes(InputStream inputStream) {
+        try {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The PDFBox version is part of the key because the extracted text may differ between versions.
+     */
+    private static String digest(byte[] pdfBytes) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        messageDigest.update(String.valueOf(Version.getVersion()).getBytes(StandardCharsets.UTF_8));
+        messageDigest.update(pdfBytes);
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.pdfreader;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over text lines of a pdf document, extracting one page at a time.
+ * Lines are split exactly like {@code text.split("\\r?\\n")} applied to the text of the whole document,
+ * i.e. a line broken across a page boundary is joined and trailing empty lines are dropped.
+ * The lines are views of the text of their page, see {@link PdfText}.
+ */
+class PdfLineIterator implements Iterator<CharSequence>, AutoCloseable {
+
+    private final PDDocument document;
+
+    private final PDFTextStripper stripper;
+
+    private final int pageCount;
+
+    private int nextPage = 1;
+
+    private final ArrayDeque<CharSequence> pageLines = new ArrayDeque<>();
+
+    /**
+     * Text after the last line separator of the already extracted pages.
+     */
+    private String unterminatedLine = "";
+
+    /**
+     * Number of empty lines which are emitted only if a non-empty line follows them.
+     */
+    private int pendingEmptyLines = 0;
+
+    private boolean anyTextExtracted = false;
+
+    private boolean closed = false;
+
+    PdfLineIterator(PDDocument document) {
+        this.document = document;
+        this.pageCount = document.getNumberOfPages();
+        this.stripper = new PDFTextStripper();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pageLines.isEmpty()) {
+            if (closed) {
+                return false;
+            }
+            if (nextPage > pageCount) {
+                finish();
+                return !pageLines.isEmpty();
+            }
+            extractNextPage();
+        }
+        return true;
+    }
+
+    @Override
+    public CharSequence next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pageLines.poll();
+    }
+
+    private void extractNextPage() {
+        String pageText;
+        try {
+            stripper.setStartPage(nextPage);
+            stripper.setEndPage(nextPage);
+            pageText = stripper.getText(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextPage++;
+        if (!pageText.isEmpty()) {
+            anyTextExtracted = true;
+        }
+
+        if (!unterminatedLine.isEmpty()) {
+            pageText = unterminatedLine + pageText;
+        }
+        PdfText pageLineText = PdfText.ofTerminatedLines(pageText);
+        for (CharSequence line : pageLineText.getLines()) {
+            addLine(line);
+        }
+        int lastLineSeparator = pageText.lastIndexOf('\n');
+        unterminatedLine = pageText.substring(lastLineSeparator + 1);
+    }
+
+    private void addLine(CharSequence line) {
+        if (line.length() == 0) {
+            pendingEmptyLines++;
+            return;
+        }
+        for (; pendingEmptyLines > 0; pendingEmptyLines--) {
+            pageLines.add("");
+        }
+        pageLines.add(line);
+    }
+
+    private void finish() {
+        if (!unterminatedLine.isEmpty()) {
+            addLine(unterminatedLine);
+            unterminatedLine = "";
+        }
+        if (!anyTextExtracted) {
+            //Consistent with String.split which returns one empty string for an empty input
+            pageLines.add("");
+        }
+        pendingEmptyLines = 0;
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            document.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.pdfreader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact file format of extracted pdf lines:
+ * a magic number and a format version followed by the deflated line count and length-prefixed UTF-8 lines.
+ */
+class PdfLinesCodec {
+
+    private static final int MAGIC = 0x52564C4E;
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Upper bound of what is allocated upfront for a decoded count or length,
+     * so a corrupt one fails at the end of the data instead of with {@link OutOfMemoryError}.
+     */
+    private static final int MAX_PREALLOCATION = 8192;
+
+    static byte[] encode(List<? extends CharSequence> lines) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            try (DataOutputStream deflatedOut = new DataOutputStream(new DeflaterOutputStream(out))) {
+                writeVarInt(deflatedOut, lines.size());
+                for (CharSequence line : lines) {
+                    byte[] lineBytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(deflatedOut, lineBytes.length);
+                    deflatedOut.write(lineBytes);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return decoded lines or null if the bytes were written by an incompatible format version or are corrupt
+     */
+    static List<String> decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+            try (DataInputStream inflatedIn = new DataInputStream(new InflaterInputStream(in))) {
+                int lineCount = readLength(inflatedIn);
+                List<String> lines = new ArrayList<>(Math.min(lineCount, MAX_PREALLOCATION));
+                for (int i = 0; i < lineCount; i++) {
+                    byte[] lineBytes = readBytes(inflatedIn, readLength(inflatedIn));
+                    lines.add(new String(lineBytes, StandardCharsets.UTF_8));
+                }
+                return Collections.unmodifiableList(lines);
+            }
+        } catch (IOException | RuntimeException e) {
+            //Truncated or otherwise damaged entry, e.g. an invalid deflate stream or a length beyond the data
+            return null;
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * The array grows with the data read, see {@link #MAX_PREALLOCATION}.
+     */
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[Math.min(length, MAX_PREALLOCATION)];
+        int offset = 0;
+        while (offset < length) {
+            if (offset == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int n = in.read(bytes, offset, bytes.length - offset);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            offset += n;
+        }
+        return bytes;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0) {
+            throw new IOException(String.format("Negative length: %s", length));
+        }
+        return length;
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
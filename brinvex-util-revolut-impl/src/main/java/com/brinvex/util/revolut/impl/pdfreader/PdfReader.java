@@ -20,32 +20,85 @@ import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.pdfbox.text.PDFTextStripperByArea;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PdfReader {
 
     public List<String> readPdfLines(InputStream pdfInputStream) {
+        try (Stream<String> lines = streamPdfLines(pdfInputStream)) {
+            return lines.collect(Collectors.toList());
+        }
+    }
 
-        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBuffer(pdfInputStream))) {
-            if (document.isEncrypted()) {
-                throw new IllegalArgumentException("Cannot read encrypted pdf");
-            }
+    /**
+     * Returns the same lines as {@link #readPdfLines(InputStream)} but extracts the text lazily,
+     * one page at a time, as the stream is consumed.
+     * The returned stream keeps the loaded document open and must be closed by the caller.
+     */
+    public Stream<String> streamPdfLines(InputStream pdfInputStream) {
+        return streamLines(pdfInputStream).map(CharSequence::toString);
+    }
 
-            PDFTextStripperByArea stripper = new PDFTextStripperByArea();
-            stripper.setSortByPosition(true);
+    /**
+     * Same as {@link #streamPdfLines(InputStream)}, but the lines are views of the text of their page,
+     * or of the whole cached text of a {@link CachingPdfReader}, instead of a String per line, see {@link PdfText}.
+     */
+    public Stream<? extends CharSequence> streamPdfLineViews(InputStream pdfInputStream) {
+        return streamLines(pdfInputStream);
+    }
 
-            PDFTextStripper tStripper = new PDFTextStripper();
+    private Stream<CharSequence> streamLines(InputStream pdfInputStream) {
+        PDDocument document = loadPdf(pdfInputStream);
+        PdfLineIterator lineIterator;
+        try {
+            checkNotEncrypted(document);
+            lineIterator = new PdfLineIterator(document);
+        } catch (RuntimeException e) {
+            try {
+                document.close();
+            } catch (IOException closeEx) {
+                e.addSuppressed(closeEx);
+            }
+            throw e;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        lineIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(lineIterator::close);
+    }
 
-            String text = tStripper.getText(document);
+    /**
+     * Returns the same lines as {@link #readPdfLines(InputStream)} as views of one text buffer,
+     * extracting the whole document at once instead of creating a String per line.
+     */
+    public PdfText readPdfText(InputStream pdfInputStream) {
+        String text;
+        try (PDDocument document = loadPdf(pdfInputStream)) {
+            checkNotEncrypted(document);
+            text = new PDFTextStripper().getText(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PdfText.of(text);
+    }
 
-            return Arrays.asList(text.split("\\r?\\n"));
+    private void checkNotEncrypted(PDDocument document) {
+        if (document.isEncrypted()) {
+            throw new IllegalArgumentException("Cannot read encrypted pdf");
+        }
+    }
 
+    private PDDocument loadPdf(InputStream pdfInputStream) {
+        try {
+            return Loader.loadPDF(new RandomAccessReadBuffer(pdfInputStream));
         } catch (InvalidPasswordException e) {
             throw new IllegalArgumentException("Cannot read encrypted pdf", e);
         } catch (IOException e) {
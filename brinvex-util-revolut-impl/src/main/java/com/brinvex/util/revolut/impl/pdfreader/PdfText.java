@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.pdfreader;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Text of a whole pdf document, or of one of its pages, together with its line boundaries.
+ * Lines are split exactly like {@code text.split("\\r?\\n")} but are not copied out of the text:
+ * {@link #getLines()} returns {@link CharSequence} views of the single text buffer
+ * and {@link CharSequence#subSequence(int, int)} of a view is a view again,
+ * so lines can be trimmed and matched without creating a String per line.
+ * Every view keeps the whole text reachable; call {@link CharSequence#toString()} to retain a line on its own.
+ */
+public final class PdfText {
+
+    private final String text;
+
+    private final int[] lineStarts;
+
+    private final int[] lineEnds;
+
+    private final int lineCount;
+
+    private PdfText(String text, int[] lineStarts, int[] lineEnds, int lineCount) {
+        this.text = text;
+        this.lineStarts = lineStarts;
+        this.lineEnds = lineEnds;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Splits the given text into lines, see {@link PdfLineIterator} for the exact rules.
+     */
+    public static PdfText of(String text) {
+        return split(text, true);
+    }
+
+    /**
+     * Splits the given text into the lines terminated by a line separator, keeping the empty ones,
+     * so that the text of one page can be split before the following pages are known.
+     * Any text after the last line separator is not a line.
+     */
+    static PdfText ofTerminatedLines(String text) {
+        return split(text, false);
+    }
+
+    private static PdfText split(String text, boolean wholeText) {
+        int[] lineStarts = new int[64];
+        int[] lineEnds = new int[64];
+        int lineCount = 0;
+        int nonEmptyLineCount = 0;
+        int lineStart = 0;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            if (i < n ? text.charAt(i) != '\n' : !wholeText) {
+                continue;
+            }
+            int lineEnd = i;
+            if (i < n && lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineCount == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+            }
+            lineStarts[lineCount] = lineStart;
+            lineEnds[lineCount] = lineEnd;
+            lineCount++;
+            if (lineEnd > lineStart) {
+                nonEmptyLineCount = lineCount;
+            }
+            lineStart = i + 1;
+        }
+        if (!wholeText) {
+            return new PdfText(text, lineStarts, lineEnds, lineCount);
+        }
+        //Trailing empty lines are dropped, but an empty text has one empty line
+        return new PdfText(text, lineStarts, lineEnds, text.isEmpty() ? 1 : nonEmptyLineCount);
+    }
+
+    /**
+     * Joins already split lines into one buffer, keeping them exactly as they are.
+     */
+    public static PdfText of(List<? extends CharSequence> lines) {
+        int lineCount = lines.size();
+        int[] lineStarts = new int[lineCount];
+        int[] lineEnds = new int[lineCount];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            lineStarts[i] = sb.length();
+            sb.append(lines.get(i));
+            lineEnds[i] = sb.length();
+        }
+        return new PdfText(sb.toString(), lineStarts, lineEnds, lineCount);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public CharSequence getLine(int index) {
+        Objects.checkIndex(index, lineCount);
+        return new LineView(text, lineStarts[index], lineEnds[index]);
+    }
+
+    /**
+     * @return unmodifiable random access list of line views
+     */
+    public List<CharSequence> getLines() {
+        return new Lines();
+    }
+
+    private class Lines extends AbstractList<CharSequence> implements RandomAccess {
+
+        @Override
+        public CharSequence get(int index) {
+            return getLine(index);
+        }
+
+        @Override
+        public int size() {
+            return lineCount;
+        }
+    }
+
+    private static final class LineView implements CharSequence {
+
+        private final String text;
+
+        private final int start;
+
+        private final int end;
+
+        private LineView(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new StringIndexOutOfBoundsException(String.format("index %s, length %s", index, end - start));
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            int length = this.end - this.start;
+            Objects.checkFromToIndex(start, end, length);
+            if (start == 0 && end == length) {
+                return this;
+            }
+            return new LineView(text, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(start, end);
+        }
+    }
+}
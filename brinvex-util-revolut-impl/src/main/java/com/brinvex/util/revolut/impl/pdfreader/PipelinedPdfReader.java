@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.pdfreader;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link PdfReader} extracting the text on another thread while the caller consumes the lines,
+ * so that the extraction of the next pages overlaps with the parsing of the previous ones.
+ * <p>
+ * Lines produced by the delegate reader are handed over in batches through a bounded queue.
+ * The extracting thread blocks when {@code maxQueuedBatches} batches are waiting,
+ * so a slow consumer bounds the memory used. Closing the stream stops the extraction;
+ * the delegate stream is then closed by the extracting thread as soon as it notices.
+ * Exceptions thrown during the extraction are rethrown to the consumer.
+ */
+public class PipelinedPdfReader extends PdfReader {
+
+    /**
+     * Roughly the number of lines of one statement page.
+     */
+    private static final int LINES_PER_BATCH = 64;
+
+    private static final Object END = new Object();
+
+    private final PdfReader delegate;
+
+    private final Executor extractionExecutor;
+
+    private final int maxQueuedBatches;
+
+    /**
+     * @param delegate           reader producing the lines, e.g. a {@link CachingPdfReader}
+     * @param extractionExecutor executor running one extraction task per document;
+     *                           it should not be shared with the consumers of the lines,
+     *                           otherwise they may wait for a task which can not start
+     * @param maxQueuedBatches   maximum number of extracted line batches waiting for the consumer
+     */
+    public PipelinedPdfReader(PdfReader delegate, Executor extractionExecutor, int maxQueuedBatches) {
+        if (maxQueuedBatches < 1) {
+            throw new IllegalArgumentException(String.format("maxQueuedBatches must be positive: %s", maxQueuedBatches));
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.extractionExecutor = Objects.requireNonNull(extractionExecutor);
+        this.maxQueuedBatches = maxQueuedBatches;
+    }
+
+    @Override
+    public Stream<String> streamPdfLines(InputStream pdfInputStream) {
+        return pipeline(delegate.streamPdfLines(pdfInputStream));
+    }
+
+    @Override
+    public Stream<? extends CharSequence> streamPdfLineViews(InputStream pdfInputStream) {
+        return pipeline(delegate.streamPdfLineViews(pdfInputStream));
+    }
+
+    private <T> Stream<T> pipeline(Stream<T> delegateLines) {
+        Pipeline<T> pipeline = new Pipeline<>(delegateLines, maxQueuedBatches);
+        try {
+            extractionExecutor.execute(pipeline::produce);
+        } catch (RuntimeException e) {
+            delegateLines.close();
+            throw e;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        pipeline, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pipeline::cancel);
+    }
+
+    /**
+     * The whole text is extracted at once, so there is nothing to overlap with and the delegate is called directly.
+     */
+    @Override
+    public PdfText readPdfText(InputStream pdfInputStream) {
+        return delegate.readPdfText(pdfInputStream);
+    }
+
+    private static class Failure {
+
+        private final Throwable cause;
+
+        private Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private static class Pipeline<T> implements Iterator<T> {
+
+        private final Stream<T> delegateLines;
+
+        private final BlockingQueue<Object> queue;
+
+        private volatile boolean cancelled;
+
+        private Iterator<T> batch = null;
+
+        private boolean ended = false;
+
+        private Pipeline(Stream<T> delegateLines, int maxQueuedBatches) {
+            this.delegateLines = delegateLines;
+            this.queue = new ArrayBlockingQueue<>(maxQueuedBatches);
+        }
+
+        /**
+         * Runs on the extracting thread.
+         */
+        private void produce() {
+            try (delegateLines) {
+                Iterator<T> lines = delegateLines.iterator();
+                List<T> lineBatch = new ArrayList<>(LINES_PER_BATCH);
+                while (!cancelled && lines.hasNext()) {
+                    lineBatch.add(lines.next());
+                    if (lineBatch.size() == LINES_PER_BATCH) {
+                        put(lineBatch);
+                        lineBatch = new ArrayList<>(LINES_PER_BATCH);
+                    }
+                }
+                if (!lineBatch.isEmpty()) {
+                    put(lineBatch);
+                }
+                put(END);
+            } catch (Throwable e) {
+                //The consumer must learn about the failure, so the interrupt status is restored only after it is handed over
+                boolean interrupted = Thread.interrupted();
+                try {
+                    put(new Failure(e));
+                } catch (InterruptedException putEx) {
+                    interrupted = true;
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void put(Object item) throws InterruptedException {
+            if (!cancelled) {
+                queue.put(item);
+            }
+        }
+
+        /**
+         * Runs on the consuming thread. Clearing the queue releases a producer blocked on a full queue,
+         * which then sees the cancellation before putting anything else.
+         */
+        private void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (batch == null || !batch.hasNext()) {
+                if (ended) {
+                    return false;
+                }
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for extracted lines", e);
+                }
+                if (item == END) {
+                    ended = true;
+                    return false;
+                }
+                if (item instanceof Failure) {
+                    ended = true;
+                    Throwable cause = ((Failure) item).cause;
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+                @SuppressWarnings("unchecked")
+                List<T> lineBatch = (List<T>) item;
+                batch = lineBatch.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.next();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PortfolioPeriodConsolidatorTest {
+
+    /**
+     * Yearly P&L statement followed by overlapping monthly account statements, sorted by period start.
+     */
+    static List<PortfolioPeriod> createPeriods() {
+        List<PortfolioPeriod> periods = new ArrayList<>();
+        periods.add(period("2023-01-01", "2023-12-31",
+                dividend("2023-01-15T00:00Z", "AAPL", "1.95"),
+                dividend("2023-02-10T00:00Z", "MSFT", "3.00"),
+                dividend("2023-03-01T00:00Z", "KO", "1.00")
+        ));
+        periods.add(period("2023-01-01", "2023-01-31",
+                tran(TransactionType.CASH_TOP_UP, "2023-01-02T14:30Z", null, "2500.00"),
+                trade("2023-01-03T15:00:01Z", "AAPL", "10", "150.00", "1500.00"),
+                dividend("2023-01-15T10:00Z", "AAPL", "1.95"),
+                tran(TransactionType.CASH_TOP_UP, "2023-01-31T23:30Z", null, "100.00")
+        ));
+        periods.add(period("2023-02-01", "2023-02-28",
+                tran(TransactionType.CASH_TOP_UP, "2023-01-31T23:30Z", null, "100.00"),
+                dividend("2023-02-10T09:00Z", "MSFT", "3.00"),
+                dividend("2023-02-20T10:00Z", "TSLA", "1.00"),
+                dividend("2023-02-20T10:00Z", "TSLA", "2.00"),
+                tran(TransactionType.CUSTODY_FEE, "2023-02-28T10:00Z", null, "-0.12")
+        ));
+        periods.add(period("2023-03-01", "2023-03-31",
+                dividend("2023-03-01T08:00Z", "KO", "1.00"),
+                tran(TransactionType.CASH_WITHDRAWAL, "2023-03-05T10:00Z", null, "-50.00")
+        ));
+        return periods;
+    }
+
+    @Test
+    void flushInWindows_sameAsSingleFlush() {
+        List<String> expected = new ArrayList<>();
+        {
+            PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator();
+            createPeriods().forEach(consolidator::add);
+            consolidator.flush(tran -> expected.add(tran.toString()));
+        }
+        List<String> actual = new ArrayList<>();
+        {
+            PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator();
+            for (PortfolioPeriod period : createPeriods()) {
+                consolidator.flush(period.getPeriodFrom().minusDays(7), tran -> actual.add(tran.toString()));
+                consolidator.add(period);
+            }
+            consolidator.flush(tran -> actual.add(tran.toString()));
+        }
+        assertEquals(9, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void addAfterFlush_olderTransactionFails() {
+        PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator();
+        consolidator.add(period("2023-01-01", "2023-01-31",
+                tran(TransactionType.CASH_TOP_UP, "2023-01-02T14:30Z", null, "2500.00")));
+        consolidator.flush(LocalDate.parse("2023-01-20"), tran -> {
+        });
+        assertThrows(IllegalStateException.class, () -> consolidator.add(period("2023-01-20", "2023-02-19",
+                tran(TransactionType.CASH_TOP_UP, "2023-01-19T14:30Z", null, "10.00"))));
+    }
+
+    @Test
+    void unsortedOverlappingPeriods() {
+        Transaction duplicateTopUp1 = tran(TransactionType.CASH_TOP_UP, "2023-01-02T14:30Z", null, "10.00");
+        duplicateTopUp1.setIsin("FIRST");
+        Transaction duplicateTopUp2 = tran(TransactionType.CASH_TOP_UP, "2023-01-02T14:30Z", null, "10.001");
+        duplicateTopUp2.setIsin("SECOND");
+        PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator();
+        consolidator.add(period("2023-01-01", "2023-01-31",
+                tran(TransactionType.CASH_TOP_UP, "2023-01-03T10:00Z", null, "1.00"),
+                duplicateTopUp1,
+                dividend("2023-01-02T09:00Z", "AAPL", "1.95"),
+                tran(TransactionType.CASH_TOP_UP, "2023-01-02T14:30Z", null, "2.00")
+        ));
+        consolidator.add(period("2023-01-01", "2023-12-31",
+                dividend("2023-01-02T00:00Z", "AAPL", "1.95"),
+                tran(TransactionType.CUSTODY_FEE, "2023-01-02T14:30Z", null, "-0.12"),
+                duplicateTopUp2
+        ));
+        consolidator.add(period("2023-01-02", "2023-01-31",
+                tran(TransactionType.CASH_WITHDRAWAL, "2023-01-02T14:30Z", null, "-3.00")
+        ));
+        List<String> actual = new ArrayList<>();
+        consolidator.flush(tran -> actual.add(String.format("%s %s %s %s",
+                tran.getDate(), tran.getType(), tran.getValue(), tran.getIsin())));
+        //Duplicates keep the position of the first occurrence and the content of the last one,
+        //transactions with equal dates keep the order in which they were added
+        assertEquals(List.of(
+                "2023-01-02T09:00Z DIVIDEND 1.95 null",
+                "2023-01-02T14:30Z CASH_TOP_UP 10.001 SECOND",
+                "2023-01-02T14:30Z CASH_TOP_UP 2.00 null",
+                "2023-01-02T14:30Z CUSTODY_FEE -0.12 null",
+                "2023-01-02T14:30Z CASH_WITHDRAWAL -3.00 null",
+                "2023-01-03T10:00Z CASH_TOP_UP 1.00 null"
+        ), actual);
+    }
+
+    @Test
+    void partitionedBySymbol_sameAsSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> expected = new ArrayList<>();
+            {
+                PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator();
+                createPeriods().forEach(consolidator::add);
+                consolidator.flush(tran -> expected.add(tran.toString()));
+            }
+            List<String> actual = new ArrayList<>();
+            {
+                PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator(pool);
+                createPeriods().forEach(consolidator::add);
+                consolidator.flush(tran -> actual.add(tran.toString()));
+            }
+            assertEquals(expected, actual);
+
+            List<String> actualInWindows = new ArrayList<>();
+            {
+                PortfolioPeriodConsolidator consolidator = new PortfolioPeriodConsolidator(pool);
+                for (PortfolioPeriod period : createPeriods()) {
+                    consolidator.flush(period.getPeriodFrom().minusDays(7), tran -> actualInWindows.add(tran.toString()));
+                    consolidator.add(period);
+                }
+                consolidator.flush(tran -> actualInWindows.add(tran.toString()));
+            }
+            assertEquals(expected, actualInWindows);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Consecutive monthly account statements, each with some transactions of the previous month.
+     */
+    static List<PortfolioPeriod> createMonthlyPeriods() {
+        List<PortfolioPeriod> periods = new ArrayList<>();
+        periods.add(period("2023-01-01", "2023-01-31",
+                tran(TransactionType.CASH_TOP_UP, "2023-01-02T14:30Z", null, "2500.00"),
+                trade("2023-01-03T15:00:01Z", "AAPL", "10", "150.00", "1500.00"),
+                dividend("2023-01-31T10:00Z", "AAPL", "1.95"),
+                tran(TransactionType.CASH_TOP_UP, "2023-01-31T23:30Z", null, "100.00")
+        ));
+        periods.add(period("2023-02-01", "2023-02-28",
+                dividend("2023-01-31T00:00Z", "AAPL", "1.95"),
+                tran(TransactionType.CASH_TOP_UP, "2023-01-31T23:30Z", null, "100.00"),
+                dividend("2023-02-10T09:00Z", "MSFT", "3.00"),
+                tran(TransactionType.CUSTODY_FEE, "2023-02-28T10:00Z", null, "-0.12")
+        ));
+        periods.add(period("2023-03-01", "2023-03-31",
+                tran(TransactionType.CUSTODY_FEE, "2023-02-28T10:00Z", null, "-0.12"),
+                dividend("2023-03-01T08:00Z", "KO", "1.00"),
+                tran(TransactionType.CASH_WITHDRAWAL, "2023-03-05T10:00Z", null, "-50.00")
+        ));
+        return periods;
+    }
+
+    @Test
+    void incrementalConsolidation_sameAsFull() {
+        RevolutServiceImpl revolutSvc = new RevolutServiceImpl();
+        String expected = revolutSvc.consolidateAccountPortfolioPeriods(createMonthlyPeriods()).toString();
+        for (int consolidatedCount = 1; consolidatedCount < 3; consolidatedCount++) {
+            List<PortfolioPeriod> periods = createMonthlyPeriods();
+            PortfolioPeriod consolidated = revolutSvc.consolidateAccountPortfolioPeriods(
+                    new ArrayList<>(periods.subList(0, consolidatedCount)));
+            String consolidatedStr = consolidated.toString();
+            PortfolioPeriod actual = revolutSvc.consolidateAccountPortfolioPeriods(
+                    consolidated, new ArrayList<>(periods.subList(consolidatedCount, periods.size())));
+            assertEquals(expected, actual.toString());
+            assertEquals(consolidatedStr, consolidated.toString());
+        }
+
+        List<PortfolioPeriod> periods = createMonthlyPeriods();
+        PortfolioPeriod consolidated = revolutSvc.consolidateAccountPortfolioPeriods(new ArrayList<>(periods.subList(0, 2)));
+        List<PortfolioPeriod> overlapping = new ArrayList<>(List.of(period("2023-02-01", "2023-03-31")));
+        assertThrows(IllegalArgumentException.class, () -> revolutSvc.consolidateAccountPortfolioPeriods(consolidated, overlapping));
+    }
+
+    static PortfolioPeriod period(String periodFrom, String periodTo, Transaction... transactions) {
+        PortfolioPeriod period = new PortfolioPeriod();
+        period.setAccountNumber("RE12345678");
+        period.setAccountName("JOHN DOE");
+        period.setPeriodFrom(LocalDate.parse(periodFrom));
+        period.setPeriodTo(LocalDate.parse(periodTo));
+        period.setTransactions(new ArrayList<>(List.of(transactions)));
+        period.setPortfolioBreakdownSnapshots(new LinkedHashMap<>());
+        return period;
+    }
+
+    static Transaction tran(TransactionType type, String date, String symbol, String value) {
+        Transaction tran = new Transaction();
+        tran.setType(type);
+        tran.setDate(ZonedDateTime.parse(date));
+        tran.setSymbol(symbol);
+        tran.setCurrency(Currency.USD);
+        tran.setValue(new BigDecimal(value));
+        tran.setFees(BigDecimal.ZERO);
+        tran.setCommission(BigDecimal.ZERO);
+        return tran;
+    }
+
+    static Transaction trade(String date, String symbol, String quantity, String price, String value) {
+        Transaction tran = tran(TransactionType.TRADE_MARKET, date, symbol, value);
+        tran.setQuantity(new BigDecimal(quantity));
+        tran.setPrice(new BigDecimal(price));
+        tran.setSide(TransactionSide.BUY);
+        return tran;
+    }
+
+    static Transaction dividend(String date, String symbol, String value) {
+        Transaction tran = tran(TransactionType.DIVIDEND, date, symbol, value);
+        tran.setGrossAmount(new BigDecimal(value));
+        tran.setWithholdingTax(BigDecimal.ZERO);
+        tran.setFees(null);
+        tran.setCommission(null);
+        return tran;
+    }
+}
@@ -15,11 +15,13 @@
  */
 package com.brinvex.util.revolut.impl;
 
+import com.brinvex.util.revolut.api.model.AccountPortfolio;
 import com.brinvex.util.revolut.api.model.Currency;
 import com.brinvex.util.revolut.api.model.Holding;
 import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
 import com.brinvex.util.revolut.api.model.PortfolioPeriod;
 import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.StatementInfo;
 import com.brinvex.util.revolut.api.model.Transaction;
 import com.brinvex.util.revolut.api.model.TransactionType;
 import com.brinvex.util.revolut.api.service.RevolutService;
@@ -37,11 +39,14 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -150,6 +155,56 @@ class RevolutServiceTest {
     }
 
 
+    @Test
+    void processStatements_parallel() {
+        List<Path> testFilePaths = getTestFilePaths();
+        if (!testFilePaths.isEmpty()) {
+            PortfolioPeriod sequentialPtfPeriod = revolutSvc.processStatements(testFilePaths);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                PortfolioPeriod parallelPtfPeriod = revolutSvc.processStatements(testFilePaths, executor, 3);
+                assertEquals(sequentialPtfPeriod.toString(), parallelPtfPeriod.toString());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void processStatements_transactionSink() {
+        List<Path> testFilePaths = getTestFilePaths();
+        if (!testFilePaths.isEmpty()) {
+            PortfolioPeriod ptfPeriod = revolutSvc.processStatements(testFilePaths);
+            List<Transaction> sinkTransactions = new ArrayList<>();
+            PortfolioPeriod sinkPtfPeriod = revolutSvc.processStatements(testFilePaths, sinkTransactions::add);
+            assertEquals(ptfPeriod.getTransactions().toString(), sinkTransactions.toString());
+            assertEquals(ptfPeriod.getPortfolioBreakdownSnapshots().toString(), sinkPtfPeriod.getPortfolioBreakdownSnapshots().toString());
+        }
+    }
+
+    @Test
+    void processStatementsByAccount() {
+        List<Path> testFilePaths = getTestFilePaths();
+        if (!testFilePaths.isEmpty()) {
+            Map<String, List<Path>> accountFilePaths = testFilePaths
+                    .stream()
+                    .collect(Collectors.groupingBy(p -> revolutSvc.sniffStatement(p).getAccountNumber()));
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                Map<String, AccountPortfolio> accountPortfolios = revolutSvc.processStatementsByAccount(testFilePaths, executor);
+                assertEquals(accountFilePaths.keySet(), accountPortfolios.keySet());
+                accountFilePaths.forEach((accountNumber, filePaths) -> {
+                    AccountPortfolio accountPortfolio = accountPortfolios.get(accountNumber);
+                    assertEquals(accountNumber, accountPortfolio.getAccountNumber());
+                    assertEquals(revolutSvc.processStatements(filePaths).toString(), accountPortfolio.getPortfolioPeriod().toString());
+                    assertEquals(revolutSvc.getPortfolioValues(filePaths).toString(), accountPortfolio.getPortfolioValues().toString());
+                });
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
     @Test
     void processStatements_oneAccountStatement() {
         List<Path> testFilePaths = getTestFilePaths("trading-account-statement_2022-01-01_2023-01-11_en_bad2be.pdf"::equals);
@@ -253,6 +308,20 @@ class RevolutServiceTest {
         assertNotNull(portfolioValues);
     }
 
+    @Test
+    void sniffStatement() {
+        List<Path> testFilePaths = getTestFilePaths();
+        for (Path testFilePath : testFilePaths) {
+            StatementInfo statementInfo = revolutSvc.sniffStatement(testFilePath);
+            assertNotNull(statementInfo.getType(), statementInfo::toString);
+            PortfolioPeriod portfolioPeriod = revolutSvc.processStatements(List.of(testFilePath));
+            assertEquals(portfolioPeriod.getAccountNumber(), statementInfo.getAccountNumber(), statementInfo::toString);
+            assertEquals(portfolioPeriod.getAccountName(), statementInfo.getAccountName(), statementInfo::toString);
+            assertEquals(portfolioPeriod.getPeriodFrom(), statementInfo.getPeriodFrom(), statementInfo::toString);
+            assertEquals(portfolioPeriod.getPeriodTo(), statementInfo.getPeriodTo(), statementInfo::toString);
+        }
+    }
+
     @Test
     void processStatements_parse3() {
         List<Path> testFilePaths = getTestFilePaths(f ->
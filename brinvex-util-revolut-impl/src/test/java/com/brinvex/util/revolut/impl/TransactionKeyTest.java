@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl;
+
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionKeyTest {
+
+    private static final List<BigDecimal> AMOUNTS = List.of(
+            new BigDecimal("1.5"), new BigDecimal("1.50"), new BigDecimal("1.504"), new BigDecimal("1.505"),
+            new BigDecimal("-1.505"), new BigDecimal("0"), new BigDecimal("0.000000001"),
+            new BigDecimal("123456789012345678901234.56"), new BigDecimal("123456789012345678901234.561")
+    );
+
+    /**
+     * Amounts around the largest unscaled value kept in a long.
+     */
+    private static final List<BigDecimal> LONG_BOUNDARY_AMOUNTS = List.of(
+            new BigDecimal("1E+3"), new BigDecimal("1000"), new BigDecimal("9999999999.99999999"),
+            new BigDecimal("9999999999.999999995"), new BigDecimal("9999999999999999.99"),
+            new BigDecimal("9999999999999999.995"), new BigDecimal("10000000000000000.00"),
+            new BigDecimal("10000000000000000"), new BigDecimal("-92233720368547758.08"),
+            new BigDecimal("-92233720368547758.075")
+    );
+
+    private static final List<ZonedDateTime> DATES = List.of(
+            ZonedDateTime.parse("2023-01-02T14:30Z"),
+            ZonedDateTime.parse("2023-01-02T14:30:00.000000001Z"),
+            ZonedDateTime.parse("2023-01-02T15:30+01:00"),
+            ZonedDateTime.parse("2023-01-02T00:00Z"),
+            ZonedDateTime.parse("2023-01-02T14:30Z").withZoneSameInstant(ZoneId.of("GMT"))
+    );
+
+    @Test
+    void sameEqualityAsListKeys() {
+        Random random = new Random(42);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Transaction tran = new Transaction();
+            tran.setType(random.nextBoolean() ? TransactionType.DIVIDEND : TransactionType.TRADE_MARKET);
+            tran.setDate(DATES.get(random.nextInt(DATES.size())));
+            tran.setSymbol(random.nextInt(4) == 0 ? null : random.nextBoolean() ? "AAPL" : "TSLA");
+            tran.setSide(random.nextBoolean() ? null : TransactionSide.BUY);
+            tran.setQuantity(randomAmount(random));
+            tran.setPrice(randomAmount(random));
+            tran.setValue(randomAmount(random));
+            tran.setFees(randomAmount(random));
+            tran.setCommission(randomAmount(random));
+            transactions.add(tran);
+        }
+        int equalPairs = 0;
+        for (Transaction tran1 : transactions) {
+            for (Transaction tran2 : transactions) {
+                boolean expected = listKey(tran1).equals(listKey(tran2));
+                assertEquals(expected, TransactionKey.of(tran1).equals(TransactionKey.of(tran2)));
+                if (expected) {
+                    equalPairs++;
+                    assertEquals(TransactionKey.of(tran1).hashCode(), TransactionKey.of(tran2).hashCode());
+                }
+                boolean expectedDividend = dividendListKey(tran1).equals(dividendListKey(tran2));
+                assertEquals(expectedDividend, DividendTransactionKey.of(tran1).equals(DividendTransactionKey.of(tran2)));
+                if (expectedDividend) {
+                    assertEquals(DividendTransactionKey.of(tran1).hashCode(), DividendTransactionKey.of(tran2).hashCode());
+                }
+            }
+        }
+        //Not only the reflexive pairs
+        assertEquals(true, equalPairs > transactions.size());
+    }
+
+    @Test
+    void sameEqualityAsListKeys_longBoundary() {
+        for (BigDecimal amount1 : LONG_BOUNDARY_AMOUNTS) {
+            for (BigDecimal amount2 : LONG_BOUNDARY_AMOUNTS) {
+                Transaction tran1 = new Transaction();
+                tran1.setQuantity(amount1);
+                tran1.setValue(amount1);
+                tran1.setDate(DATES.get(0));
+                Transaction tran2 = new Transaction();
+                tran2.setQuantity(amount2);
+                tran2.setValue(amount2);
+                tran2.setDate(DATES.get(0));
+                boolean expected = listKey(tran1).equals(listKey(tran2));
+                assertEquals(expected, TransactionKey.of(tran1).equals(TransactionKey.of(tran2)), amount1 + " " + amount2);
+                if (expected) {
+                    assertEquals(TransactionKey.of(tran1).hashCode(), TransactionKey.of(tran2).hashCode());
+                }
+                boolean expectedDividend = dividendListKey(tran1).equals(dividendListKey(tran2));
+                assertEquals(expectedDividend, DividendTransactionKey.of(tran1).equals(DividendTransactionKey.of(tran2)));
+            }
+        }
+    }
+
+    private static BigDecimal randomAmount(Random random) {
+        int i = random.nextInt(AMOUNTS.size() + 1);
+        return i == AMOUNTS.size() ? null : AMOUNTS.get(i);
+    }
+
+    private static Object listKey(Transaction transaction) {
+        return Arrays.asList(
+                transaction.getType(),
+                transaction.getDate(),
+                transaction.getSymbol(),
+                setScale(transaction.getQuantity(), 8),
+                setScale(transaction.getPrice(), 2),
+                transaction.getSide(),
+                setScale(transaction.getValue(), 2),
+                setScale(transaction.getFees(), 2),
+                setScale(transaction.getCommission(), 2)
+        );
+    }
+
+    private static Object dividendListKey(Transaction transaction) {
+        return Arrays.asList(
+                transaction.getDate().toLocalDate(),
+                transaction.getSymbol(),
+                setScale(transaction.getValue(), 2)
+        );
+    }
+
+    private static BigDecimal setScale(BigDecimal d, int newScale) {
+        return d == null ? null : d.setScale(newScale, RoundingMode.HALF_UP);
+    }
+}
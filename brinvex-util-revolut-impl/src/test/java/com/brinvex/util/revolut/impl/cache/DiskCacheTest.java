@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DiskCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed(@TempDir Path cacheDir) throws IOException {
+        DiskCache cache = new DiskCache(cacheDir, 1_000);
+        for (int i = 0; i < 9; i++) {
+            cache.put("k" + i, new byte[100]);
+        }
+        //Explicit times, quickly written files may have equal ones; k0 and k1 were used most recently
+        for (int i = 0; i < 9; i++) {
+            long time = i < 2 ? 100_000_000L * (i + 1) : 1_000_000L * i;
+            Files.setLastModifiedTime(cacheDir.resolve("k" + i + ".bin"), FileTime.fromMillis(time));
+        }
+        assertEquals(900, directorySize(cacheDir));
+
+        //Exceeds the limit and is evicted to 90% of it: the least recently used k2 and k3 are deleted
+        cache.put("k9", new byte[200]);
+        assertEquals(900, directorySize(cacheDir));
+        assertNull(cache.get("k2"));
+        assertNull(cache.get("k3"));
+        assertNotNull(cache.get("k0"));
+        assertNotNull(cache.get("k1"));
+        assertArrayEquals(new byte[200], cache.get("k9"));
+    }
+
+    @Test
+    void sizeOfExistingEntriesIsCounted(@TempDir Path cacheDir) throws IOException {
+        DiskCache cache1 = new DiskCache(cacheDir, 1_000);
+        cache1.put("k0", new byte[600]);
+        Files.setLastModifiedTime(cacheDir.resolve("k0.bin"), FileTime.fromMillis(1_000_000L));
+
+        DiskCache cache2 = new DiskCache(cacheDir, 1_000);
+        cache2.put("k1", new byte[600]);
+        assertNull(cache2.get("k0"));
+        assertNotNull(cache2.get("k1"));
+
+        cache2.remove("k1");
+        cache2.put("k2", new byte[1_000]);
+        assertNotNull(cache2.get("k2"));
+    }
+
+    private static long directorySize(Path cacheDir) throws IOException {
+        long size = 0;
+        try (Stream<Path> paths = Files.list(cacheDir)) {
+            for (Path path : paths.toList()) {
+                size += Files.size(path);
+            }
+        }
+        return size;
+    }
+}
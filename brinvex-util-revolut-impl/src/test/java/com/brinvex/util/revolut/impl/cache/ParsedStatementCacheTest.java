@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.cache;
+
+import com.brinvex.util.revolut.api.model.Currency;
+import com.brinvex.util.revolut.api.model.Holding;
+import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ParsedStatementCacheTest {
+
+    @Test
+    void roundTrip(@TempDir Path cacheDir) throws IOException {
+        ParsedStatementCache cache = new ParsedStatementCache(cacheDir, 1_000_000);
+        String key = cache.key(new byte[]{1, 2, 3});
+        assertEquals(key, cache.key(new byte[]{1, 2, 3}));
+        assertNotEquals(key, cache.key(new byte[]{1, 2, 4}));
+        assertNull(cache.getPortfolioPeriod(key));
+        assertNull(cache.getPortfolioValues(key));
+
+        PortfolioPeriod ptfPeriod = createPortfolioPeriod();
+        List<PortfolioValue> ptfValues = List.of(createPortfolioValue());
+        cache.putPortfolioPeriod(key, ptfPeriod);
+        cache.putPortfolioValues(key, ptfValues);
+
+        PortfolioPeriod cachedPtfPeriod = cache.getPortfolioPeriod(key);
+        assertNotSame(ptfPeriod, cachedPtfPeriod);
+        assertEquals(ptfPeriod.toString(), cachedPtfPeriod.toString());
+        assertEquals(ptfValues.toString(), cache.getPortfolioValues(key).toString());
+        //Every read returns a new copy
+        assertNotSame(cachedPtfPeriod, cache.getPortfolioPeriod(key));
+
+        //Entries of an incompatible format are ignored
+        try (var entryPaths = Files.list(cacheDir)) {
+            for (Path entryPath : entryPaths.toList()) {
+                Files.write(entryPath, new byte[]{0, 0, 0, 0, 1});
+            }
+        }
+        assertNull(cache.getPortfolioPeriod(key));
+        assertNull(cache.getPortfolioValues(key));
+    }
+
+    @Test
+    void truncatedEntryIsDeleted(@TempDir Path cacheDir) throws IOException {
+        ParsedStatementCache cache = new ParsedStatementCache(cacheDir, 1_000_000);
+        String key = cache.key(new byte[]{1, 2, 3});
+        cache.putPortfolioPeriod(key, createPortfolioPeriod());
+        cache.putPortfolioValues(key, List.of(createPortfolioValue()));
+
+        try (var entryPaths = Files.list(cacheDir)) {
+            for (Path entryPath : entryPaths.toList()) {
+                byte[] bytes = Files.readAllBytes(entryPath);
+                Files.write(entryPath, Arrays.copyOf(bytes, bytes.length / 2));
+            }
+        }
+        assertNull(cache.getPortfolioPeriod(key));
+        assertNull(cache.getPortfolioValues(key));
+        try (var entryPaths = Files.list(cacheDir)) {
+            assertEquals(0, entryPaths.count());
+        }
+    }
+
+    private static PortfolioPeriod createPortfolioPeriod() {
+        //Transactions of a statement, without a symbol, with fractional shares and with the dividend tax fields
+        Transaction topUp = new Transaction();
+        topUp.setType(TransactionType.CASH_TOP_UP);
+        topUp.setDate(ZonedDateTime.parse("2023-01-02T14:30:00Z"));
+        topUp.setCurrency(Currency.USD);
+        topUp.setValue(new BigDecimal("2500.00"));
+
+        Transaction sell = new Transaction();
+        sell.setType(TransactionType.TRADE_LIMIT);
+        sell.setDate(ZonedDateTime.parse("2023-01-10T16:45:12Z"));
+        sell.setSymbol("TSLA");
+        sell.setCurrency(Currency.USD);
+        sell.setQuantity(new BigDecimal("0.5217"));
+        sell.setPrice(new BigDecimal("118.25"));
+        sell.setSide(TransactionSide.SELL);
+        sell.setValue(new BigDecimal("61.69"));
+        sell.setFees(new BigDecimal("0.02"));
+        sell.setCommission(BigDecimal.ZERO);
+
+        Transaction dividend = new Transaction();
+        dividend.setType(TransactionType.DIVIDEND);
+        dividend.setDate(ZonedDateTime.parse("2023-01-15T10:00:00Z"));
+        dividend.setSymbol("AAPL");
+        dividend.setSecurityName("Apple Inc");
+        dividend.setIsin("US0378331005");
+        dividend.setCountry("US");
+        dividend.setCurrency(Currency.USD);
+        dividend.setGrossAmount(new BigDecimal("2.70"));
+        dividend.setWithholdingTax(new BigDecimal("0.40"));
+        dividend.setValue(new BigDecimal("2.30"));
+
+        Holding holding = new Holding();
+        holding.setSymbol("AAPL");
+        holding.setQuantity(new BigDecimal("10"));
+        PortfolioBreakdown breakdown = new PortfolioBreakdown();
+        breakdown.setDate(LocalDate.parse("2023-01-31"));
+        breakdown.setCash(new TreeMap<>(Map.of(Currency.USD, new BigDecimal("1000.00"))));
+        breakdown.setHoldings(new ArrayList<>(List.of(holding)));
+
+        PortfolioPeriod ptfPeriod = new PortfolioPeriod();
+        ptfPeriod.setAccountNumber("RE12345678");
+        ptfPeriod.setAccountName("JOHN DOE");
+        ptfPeriod.setPeriodFrom(LocalDate.parse("2023-01-01"));
+        ptfPeriod.setPeriodTo(LocalDate.parse("2023-01-31"));
+        ptfPeriod.setTransactions(new ArrayList<>(List.of(topUp, sell, dividend)));
+        ptfPeriod.setPortfolioBreakdownSnapshots(new TreeMap<>(Map.of(breakdown.getDate(), breakdown)));
+        return ptfPeriod;
+    }
+
+    private static PortfolioValue createPortfolioValue() {
+        PortfolioValue ptfValue = new PortfolioValue();
+        ptfValue.setAccountNumber("RE12345678");
+        ptfValue.setAccountName("JOHN DOE");
+        ptfValue.setDay(LocalDate.parse("2023-01-31"));
+        ptfValue.setCashValue(new BigDecimal("1000.00"));
+        ptfValue.setStocksValue(new BigDecimal("1500.00"));
+        ptfValue.setTotalValue(new BigDecimal("2500.00"));
+        ptfValue.setCurrency(Currency.USD);
+        return ptfValue;
+    }
+}
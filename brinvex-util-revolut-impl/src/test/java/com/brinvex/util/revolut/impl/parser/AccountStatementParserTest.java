@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.Holding;
+import com.brinvex.util.revolut.api.model.PortfolioBreakdown;
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.PortfolioValue;
+import com.brinvex.util.revolut.api.model.Transaction;
+import com.brinvex.util.revolut.api.model.TransactionSide;
+import com.brinvex.util.revolut.api.model.TransactionType;
+import com.brinvex.util.revolut.impl.pdfreader.PdfText;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AccountStatementParserTest {
+
+    static final List<String> ACCOUNT_STATEMENT_LINES = List.of(
+            "Revolut Securities Europe UAB",
+            "Account Statement",
+            "Account name JOHN DOE",
+            "Account number RE12345678",
+            "Period 01 Jan 2023 - 31 Jan 2023",
+            "",
+            "USD Account summary",
+            "Starting Ending",
+            "Stocks value $0 $1,500.00",
+            "Cash value * $0 $1,000.00",
+            "Total $0 $2,500.00",
+            "Portfolio breakdown",
+            "Symbol Company ISIN Quantity Price Value % of Portfolio",
+            "AAPL Apple Inc. US0378331005 10 $150.00 $1,500.00 60.00%",
+            "Stocks value $1,500.00 60.00%",
+            "Cash value $1,000.00 40.00%",
+            "USD Transactions",
+            "Date Symbol Type Quantity Price Side Value Fees Commission",
+            "02 Jan 2023 14:30:00 GMT Cash top-up $2,500.00 $0 $0",
+            "03 Jan 2023 15:00:01 GMT AAPL Trade - Market 10 $150.00 Buy $1,500.00 $0 $0",
+            "  ",
+            "04 Jan 2023 09:00:00 GMT Transfer from Revolut Bank UAB to Revolut Securities Europe UAB",
+            "15 Jan 2023 10:00:00 GMT AAPL Dividend $2.30 $0 $0",
+            "20 Jan 2023 10:00:00 GMT TSLA Stock split 2 $0 $0 $0",
+            "This statement is provided by Revolut Securities Europe UAB",
+            "01 Feb 2023 10:00:00 GMT AAPL Dividend $999.00 $0 $0"
+    );
+
+    private final AccountStatementParser parser = new AccountStatementParser();
+
+    @Test
+    void parseTradingAccountStatement() {
+        PortfolioPeriod ptfPeriod = parser.parseTradingAccountStatement(ACCOUNT_STATEMENT_LINES);
+
+        assertEquals("JOHN DOE", ptfPeriod.getAccountName());
+        assertEquals("RE12345678", ptfPeriod.getAccountNumber());
+        assertEquals(LocalDate.parse("2023-01-01"), ptfPeriod.getPeriodFrom());
+        assertEquals(LocalDate.parse("2023-01-31"), ptfPeriod.getPeriodTo());
+
+        PortfolioBreakdown breakdown = ptfPeriod.getPortfolioBreakdownSnapshots().get(LocalDate.parse("2023-01-31"));
+        assertEquals(new BigDecimal("1000.00"), breakdown.getCash().values().iterator().next());
+        List<Holding> holdings = breakdown.getHoldings();
+        assertEquals(1, holdings.size());
+        assertEquals("AAPL", holdings.get(0).getSymbol());
+        assertEquals("Apple Inc.", holdings.get(0).getCompany());
+        assertEquals("US0378331005", holdings.get(0).getIsin());
+        assertEquals(new BigDecimal("10"), holdings.get(0).getQuantity());
+        assertEquals(new BigDecimal("150.00"), holdings.get(0).getPrice());
+        assertEquals(new BigDecimal("1500.00"), holdings.get(0).getValue());
+
+        List<Transaction> transactions = ptfPeriod.getTransactions();
+        assertEquals(4, transactions.size());
+
+        Transaction topUp = transactions.get(0);
+        assertEquals(TransactionType.CASH_TOP_UP, topUp.getType());
+        assertEquals(ZonedDateTime.parse("2023-01-02T14:30:00Z"), topUp.getDate());
+        assertNull(topUp.getSymbol());
+        assertEquals(new BigDecimal("2500.00"), topUp.getValue());
+        assertEquals(new BigDecimal("0"), topUp.getFees());
+
+        Transaction trade = transactions.get(1);
+        assertEquals(TransactionType.TRADE_MARKET, trade.getType());
+        assertEquals(ZonedDateTime.parse("2023-01-03T15:00:01Z"), trade.getDate());
+        assertEquals("AAPL", trade.getSymbol());
+        assertEquals(new BigDecimal("10"), trade.getQuantity());
+        assertEquals(new BigDecimal("150.00"), trade.getPrice());
+        assertEquals(TransactionSide.BUY, trade.getSide());
+        assertEquals(new BigDecimal("1500.00"), trade.getValue());
+
+        Transaction dividend = transactions.get(2);
+        assertEquals(TransactionType.DIVIDEND, dividend.getType());
+        assertEquals("AAPL", dividend.getSymbol());
+        assertEquals(ZonedDateTime.parse("2023-01-15T10:00:00Z"), dividend.getDate());
+        assertEquals(new BigDecimal("2.30"), dividend.getValue());
+
+        Transaction split = transactions.get(3);
+        assertEquals(TransactionType.STOCK_SPLIT, split.getType());
+        assertEquals("TSLA", split.getSymbol());
+        assertEquals(new BigDecimal("2"), split.getQuantity());
+        assertEquals(new BigDecimal("0"), split.getValue());
+    }
+
+    @Test
+    void parsePortfolioValueFromTradingAccountStatement() {
+        List<PortfolioValue> ptfValues = parser.parsePortfolioValueFromTradingAccountStatement(ACCOUNT_STATEMENT_LINES);
+        assertEquals(2, ptfValues.size());
+        assertEquals(LocalDate.parse("2023-01-01"), ptfValues.get(0).getDay());
+        assertEquals(new BigDecimal("0"), ptfValues.get(0).getTotalValue());
+        assertEquals(LocalDate.parse("2023-01-31"), ptfValues.get(1).getDay());
+        assertEquals(new BigDecimal("1500.00"), ptfValues.get(1).getStocksValue());
+        assertEquals(new BigDecimal("1000.00"), ptfValues.get(1).getCashValue());
+        assertEquals(new BigDecimal("2500.00"), ptfValues.get(1).getTotalValue());
+    }
+
+    @Test
+    void parseTradingAccountStatement_lineViews() {
+        List<String> paddedLines = ACCOUNT_STATEMENT_LINES.stream().map(line -> " " + line + "\t").toList();
+        List<CharSequence> lineViews = PdfText.of(String.join("\r\n", paddedLines)).getLines();
+
+        assertEquals(parser.parseTradingAccountStatement(ACCOUNT_STATEMENT_LINES).toString(),
+                parser.parseTradingAccountStatement(lineViews).toString());
+        assertEquals(parser.parsePortfolioValueFromTradingAccountStatement(ACCOUNT_STATEMENT_LINES).toString(),
+                parser.parsePortfolioValueFromTradingAccountStatement(lineViews).toString());
+    }
+}
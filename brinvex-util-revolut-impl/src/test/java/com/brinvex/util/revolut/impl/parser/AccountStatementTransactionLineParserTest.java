@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AccountStatementTransactionLineParserTest {
+
+    private static final List<String> CANONICAL_LINES = List.of(
+            "02 Jan 2023 14:30:00 GMT Cash top-up $2,500.00 $0 $0",
+            "02 Jan 2023 14:30:00 GMT Cash withdrawal -$1,234,567.89 $0 $0",
+            "05 Feb 2023 01:02:03 GMT Custody fee -US$0.12 US$0 US$0",
+            "03 Jan 2023 15:00:01 GMT AAPL Trade - Market 10 $150.00 Buy $1,500.00 $0.01 $0",
+            "03 Jan 2023 15:00:01 GMT BRK.B Trade - Limit 0.12345678 150.5 Sell $18.06 $0.02 $1.00",
+            "15 Jan 2023 10:00:00 GMT AAPL Dividend $2.30 $0 $0",
+            "15 Jan 2023 10:00:00 GMT DIV Dividend Fund Dividend $2.30 $0 $0",
+            "20 Jan 2023 10:00:00 GMT TSLA Stock split 2 $0 $0 $0",
+            "20 Jan 2023 10:00:00 GMT GEHC Spinoff 1,000.5 $0 $0 $0"
+    );
+
+    private static final List<String> NON_CANONICAL_LINES = List.of(
+            "02 Jan 2023 14:30:00 GMT Cash top-up  $2,500.00 $0 $0",
+            "02 Jan 2023 14:30:00 GMT AAPL Trade - Market 10 $150.00Buy $1,500.00 $0 $0",
+            "02 Jan 2023 14:30:00 GMT Cash top-up $2,500.00$0$0",
+            "2 Jan 2023 14:30:00 GMT Cash top-up $2,500.00 $0 $0"
+    );
+
+    private final AccountStatementTransactionLineTokenizer tokenizer = new AccountStatementTransactionLineTokenizer();
+
+    private final AccountStatementTransactionLineParser parser = new AccountStatementTransactionLineParser();
+
+    private final AccountStatementTransactionLineParser lazyParser = new AccountStatementTransactionLineParser(true, true);
+
+    @Test
+    void tokenizer_sameResultAsRegex() {
+        for (String line : CANONICAL_LINES) {
+            Transaction tokenized = tokenizer.tryParse(line);
+            assertNotNull(tokenized, line);
+            assertEquals(parser.parseTradingAccountTransactionLineByRegex(line).toString(), tokenized.toString(), line);
+        }
+    }
+
+    @Test
+    void tokenizer_rejectsNonCanonicalLines() {
+        for (String line : NON_CANONICAL_LINES) {
+            assertNull(tokenizer.tryParse(line), line);
+        }
+    }
+
+    @Test
+    void parser_fallsBackToRegex() {
+        for (String line : NON_CANONICAL_LINES.subList(0, 3)) {
+            assertEquals(parser.parseTradingAccountTransactionLineByRegex(line).toString(),
+                    parser.parseTradingAccountTransactionLine(line).toString(), line);
+        }
+    }
+
+    @Test
+    void lazyDecimals_sameResultAsEager() {
+        List<String> lines = new ArrayList<>(CANONICAL_LINES);
+        lines.addAll(NON_CANONICAL_LINES.subList(0, 3));
+        for (String line : lines) {
+            Transaction eager = parser.parseTradingAccountTransactionLine(line);
+            Transaction lazy = lazyParser.parseTradingAccountTransactionLine(line);
+            assertEquals(eager.getCommission(), lazy.getCommission(), line);
+            assertEquals(eager.getQuantity(), lazy.getQuantity(), line);
+            assertEquals(eager.getValue(), lazy.getValue(), line);
+            assertEquals(eager.toString(), lazy.toString(), line);
+        }
+        Transaction lazy = lazyParser.parseTradingAccountTransactionLineByRegex(CANONICAL_LINES.get(3));
+        lazy.setPrice(null);
+        assertNull(lazy.getPrice());
+        assertEquals(parser.parseTradingAccountTransactionLineByRegex(CANONICAL_LINES.get(3)).getFees(), lazy.getFees());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DateTimeParseUtilTest {
+
+    private static final DateTimeFormatter TRANSACTION_DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm:ss O", Locale.ENGLISH);
+
+    @Test
+    void parseTransactionDateTime_sameAsFormatter() {
+        LocalDate date = LocalDate.of(2019, 12, 25);
+        for (int i = 0; i < 1000; i++) {
+            String s = String.format("%s %02d:%02d:%02d GMT",
+                    date.format(DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH)), i % 24, i % 60, (i * 7) % 60);
+            ZonedDateTime expected = ZonedDateTime.parse(s, TRANSACTION_DATETIME_FORMATTER);
+            ZonedDateTime actual = DateTimeParseUtil.parseTransactionDateTime(s);
+            assertEquals(expected, actual, s);
+            assertEquals(expected.getZone(), actual.getZone(), s);
+            date = date.plusDays(3);
+        }
+    }
+
+    @Test
+    void parseTransactionDateTime_fallback() {
+        assertEquals(
+                ZonedDateTime.parse("02 Jan 2023 14:30:00 GMT+1", TRANSACTION_DATETIME_FORMATTER),
+                DateTimeParseUtil.parseTransactionDateTime("02 Jan 2023 14:30:00 GMT+1"));
+        assertEquals(
+                ZonedDateTime.parse("31 Feb 2023 14:30:00 GMT", TRANSACTION_DATETIME_FORMATTER),
+                DateTimeParseUtil.parseTransactionDateTime("31 Feb 2023 14:30:00 GMT"));
+        for (String s : List.of("02 Foo 2023 14:30:00 GMT", "02 Jan 2023 14:30:00 UTC", "32 Jan 2023 14:30:00 GMT", "2 Jan 2023")) {
+            assertThrows(DateTimeException.class, () -> DateTimeParseUtil.parseTransactionDateTime(s), s);
+        }
+    }
+
+    @Test
+    void parseIsoDateAtStartOfDayGmt_sameAsLocalDateParse() {
+        LocalDate date = LocalDate.of(2019, 12, 25);
+        for (int i = 0; i < 1000; i++) {
+            String s = date.toString();
+            ZonedDateTime expected = LocalDate.parse(s).atStartOfDay(ZoneId.of("GMT")).withFixedOffsetZone();
+            ZonedDateTime actual = DateTimeParseUtil.parseIsoDateAtStartOfDayGmt(s);
+            assertEquals(expected, actual, s);
+            assertEquals(expected.getZone(), actual.getZone(), s);
+            date = date.plusDays(3);
+        }
+        for (String s : List.of("2023-02-29", "2023-13-01", "2023-1-01", "2023/01/01")) {
+            assertThrows(DateTimeException.class, () -> DateTimeParseUtil.parseIsoDateAtStartOfDayGmt(s), s);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineClassifierTest {
+
+    @Test
+    void classify() {
+        LineClassifier classifier = new LineClassifier();
+        assertEquals(LineClass.ACCOUNT_NAME, classifier.classify("Account name John Doe"));
+        assertEquals(LineClass.ACCOUNT_NUMBER, classifier.classify("Account number 123"));
+        assertEquals(LineClass.TRANSACTIONS_SECTION_START, classifier.classify("USD Transactions"));
+        assertEquals(LineClass.USD_ACCOUNT_SUMMARY, classifier.classify("USD Account summary"));
+        assertEquals(LineClass.FOOTER, classifier.classify("Get help directly In app"));
+        assertEquals(LineClass.INTERNAL_TRANSFER, classifier.classify(
+                "02 Jan 2023 Transfer from Revolut Bank UAB to Revolut Securities Europe UAB"));
+        assertEquals(LineClass.DATED_ROW, classifier.classify("02 Jan 2023 14:30:00 GMT Cash top-up $2,500.00 $0 $0"));
+        assertEquals(LineClass.OTHER, classifier.classify("AAPL Apple Inc US0378331005 10 $150.00 $1,500.00 10.5%"));
+        assertEquals(LineClass.OTHER, classifier.classify("€ 5"));
+        assertEquals(LineClass.OTHER, classifier.classify(""));
+    }
+
+    @Test
+    void listener() {
+        Map<LineClass, Integer> counts = new EnumMap<>(LineClass.class);
+        LineClassifier classifier = new LineClassifier((lineClass, line) -> counts.merge(lineClass, 1, Integer::sum));
+        new AccountStatementParser(new AccountStatementTransactionLineParser(), classifier)
+                .parseTradingAccountStatement(AccountStatementParserTest.ACCOUNT_STATEMENT_LINES);
+        assertEquals(1, counts.get(LineClass.ACCOUNT_NAME));
+        assertEquals(1, counts.get(LineClass.HOLDINGS_SECTION_START));
+    }
+}
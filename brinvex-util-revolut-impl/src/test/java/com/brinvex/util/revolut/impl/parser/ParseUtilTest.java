@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParseUtilTest {
+
+    private static final List<String> VALID_MONEY = List.of(
+            "0", "-0", "-0.00", "5", "+5", "5.", ".5", "$5", "$-5", "-$5", "US$0", "-US$1,234.56",
+            "$2,500.00", "0.12345678", "1,000.5", "000123.4500", "999999999999999999",
+            "-999999999999999999.99", "12345678901234567890.123", "0.00000000000000000000000001", "1e5"
+    );
+
+    private static final List<String> INVALID_MONEY = List.of(
+            "$", "US$", "-", ".", "--5", "5-", "1.2.3", "- 5", "5 5", "abc", "€5"
+    );
+
+    @Test
+    void parseMoney_sameAsFallback() {
+        for (String s : VALID_MONEY) {
+            BigDecimal expected = ParseUtil.parseMoneyFallback(s);
+            BigDecimal actual = ParseUtil.parseMoney(s);
+            assertEquals(expected, actual, s);
+            assertEquals(expected.scale(), actual.scale(), s);
+        }
+    }
+
+    @Test
+    void parseDecimal_sameAsFallback() {
+        for (String s : VALID_MONEY) {
+            if (s.contains("$")) {
+                continue;
+            }
+            assertEquals(ParseUtil.parseDecimalFallback(s), ParseUtil.parseDecimal(s), s);
+        }
+        assertThrows(NumberFormatException.class, () -> ParseUtil.parseDecimal("$5"));
+    }
+
+    @Test
+    void parseMoney_invalid() {
+        for (String s : INVALID_MONEY) {
+            assertThrows(NumberFormatException.class, () -> ParseUtil.parseMoneyFallback(s), s);
+            assertThrows(NumberFormatException.class, () -> ParseUtil.parseMoney(s), s);
+        }
+    }
+
+    @Test
+    void parseMoney_blankAndRange() {
+        assertNull(ParseUtil.parseMoney((String) null));
+        assertNull(ParseUtil.parseMoney(""));
+        assertNull(ParseUtil.parseMoney("  "));
+        assertEquals(new BigDecimal("-1234.56"), ParseUtil.parseMoney("Cash -US$1,234.56 USD", 5, 17));
+    }
+
+    @Test
+    void charSequenceHelpers_sameAsString() {
+        for (String s : List.of("", " ", "\t\n", "a", " a b ", "\u2003x\u2003", "Rate: 15%", "ab ab ")) {
+            CharSequence cs = new StringBuilder(s);
+            assertEquals(s.trim(), ParseUtil.trim(cs).toString(), s);
+            assertEquals(s.isBlank(), ParseUtil.isBlank(cs), s);
+            for (int i = -1; i <= s.length() + 1; i++) {
+                assertEquals(s.startsWith("ab", i), ParseUtil.startsWith(cs, "ab", i), s);
+                assertEquals(s.indexOf(' ', i), ParseUtil.indexOf(cs, ' ', i), s);
+                assertEquals(s.lastIndexOf(' ', i), ParseUtil.lastIndexOf(cs, ' ', i), s);
+            }
+            assertEquals(s.contains("b "), ParseUtil.contains(cs, "b "), s);
+        }
+    }
+}
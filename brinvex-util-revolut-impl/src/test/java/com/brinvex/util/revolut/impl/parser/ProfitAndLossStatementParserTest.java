@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import com.brinvex.util.revolut.api.model.PortfolioPeriod;
+import com.brinvex.util.revolut.api.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProfitAndLossStatementParserTest {
+
+    private static final List<String> CANONICAL_DIVIDEND_LINES = List.of(
+            "2023-01-15 AAPL Apple Inc. US0378331005 US US$2.30 US$0.35 US$1.95",
+            "2023-01-15 BRK.B Berkshire Hathaway Inc. Class B US0846707026 US US$1,234.50 - US$1,234.50",
+            "2023-02-01 TSM Taiwan Semiconductor  Manufacturing US8740391003 TW US$10.00",
+            "2023-02-01 ABC A US0000000001 US US-$0.01 US$0 US-$0.01"
+    );
+
+    private static final List<String> NON_CANONICAL_DIVIDEND_LINES = List.of(
+            "2023-01-15  AAPL Apple Inc. US0378331005 US US$2.30 US$0.35 US$1.95",
+            "2023-01-15 AAPL Apple Inc. US0378331005 US US$2.30 US$0.35 US$1.95 x",
+            "2023-01-15 AAPL Apple Inc. US0378331005 USA US$2.30 US$0.35 US$1.95",
+            "2023-01-15 AAPL US0378331005 US US$2.30"
+    );
+
+    private static final List<String> PROFIT_AND_LOSS_LINES = List.of(
+            "Profit and Loss Statement",
+            "Account name JOHN DOE",
+            "Account number RE12345678",
+            "Period 01 Jan 2023 - 31 Dec 2023",
+            "USD Profit and Loss Statement",
+            "Other income & fees",
+            "Date Symbol Security name ISIN Country Gross Amount Withholding Tax Net Amount",
+            "2023-01-15 AAPL Apple Inc. US0378331005 US US$2.30 US$0.35 US$1.95",
+            "", "", "",
+            "2023-02-01 TSM Taiwan Semiconductor US8740391003 TW US$10.00",
+            "",
+            "Rate: 21%",
+            "US$2.10",
+            "Date Symbol Security name ISIN Country Gross Amount Withholding Tax Net Amount",
+            "",
+            "US$7.90",
+            "",
+            "2023-03-01 KO Coca-Cola Co US1912161007 US US$1.00",
+            "",
+            "-",
+            "",
+            "US$1.00",
+            "",
+            "",
+            "2023-04-01 MSFT Microsoft Corp US5949181045 US US$3.00 - US$3.00",
+            "", "", "",
+            "Total US$16.30 US$2.45 US$13.85"
+    );
+
+    private final ProfitAndLossDividendLineTokenizer tokenizer = new ProfitAndLossDividendLineTokenizer();
+
+    private final ProfitAndLossStatementParser parser = new ProfitAndLossStatementParser();
+
+    @Test
+    void tokenizer_sameResultAsRegex() {
+        for (String line : CANONICAL_DIVIDEND_LINES) {
+            Transaction tokenized = tokenizer.tryParse(line);
+            assertNotNull(tokenized, line);
+            assertEquals(parser.parseDividendStartLineByRegex(line).toString(), tokenized.toString(), line);
+        }
+    }
+
+    @Test
+    void tokenizer_rejectsNonCanonicalLines() {
+        for (String line : NON_CANONICAL_DIVIDEND_LINES) {
+            assertNull(tokenizer.tryParse(line), line);
+        }
+    }
+
+    @Test
+    void parseProfitAndLossStatement() {
+        PortfolioPeriod ptfPeriod = parser.parseProfitAndLossStatement(PROFIT_AND_LOSS_LINES);
+        assertEquals("RE12345678", ptfPeriod.getAccountNumber());
+
+        List<Transaction> dividends = ptfPeriod.getTransactions();
+        assertEquals(4, dividends.size());
+        assertEquals("AAPL", dividends.get(0).getSymbol());
+        assertEquals(new BigDecimal("1.95"), dividends.get(0).getValue());
+        assertEquals("Taiwan Semiconductor", dividends.get(1).getSecurityName());
+        assertEquals(new BigDecimal("2.10"), dividends.get(1).getWithholdingTax());
+        assertEquals(new BigDecimal("7.90"), dividends.get(1).getValue());
+        assertEquals(BigDecimal.ZERO, dividends.get(2).getWithholdingTax());
+        assertEquals(new BigDecimal("1.00"), dividends.get(2).getValue());
+        assertEquals(BigDecimal.ZERO, dividends.get(3).getWithholdingTax());
+        assertEquals(new BigDecimal("3.00"), dividends.get(3).getValue());
+    }
+}
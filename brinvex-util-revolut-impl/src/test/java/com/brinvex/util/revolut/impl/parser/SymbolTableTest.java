@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SymbolTableTest {
+
+    @Test
+    void intern() {
+        SymbolTable symbolTable = new SymbolTable();
+        String aapl = symbolTable.intern("AAPL");
+        assertSame(aapl, symbolTable.intern("x AAPL y", 2, 6));
+        assertSame(aapl, symbolTable.intern(new String("AAPL")));
+        assertNull(symbolTable.intern(null));
+
+        Matcher matcher = Pattern.compile("(?<symbol>\\S+)(?<isin> \\S{12})?").matcher("AAPL");
+        assertTrue(matcher.matches());
+        assertSame(aapl, symbolTable.intern("AAPL", matcher, "symbol"));
+        assertNull(symbolTable.intern("AAPL", matcher, "isin"));
+
+        for (int i = 0; i < 1_000; i++) {
+            String symbol = "S" + i;
+            assertSame(symbolTable.intern(symbol), symbolTable.intern("-" + symbol + "-", 1, symbol.length() + 1));
+        }
+        assertEquals(1_001, symbolTable.size());
+        assertEquals(0, symbolTable.getId("AAPL"));
+        assertEquals("S999", symbolTable.getValue(symbolTable.getId("S999")));
+        assertEquals(-1, symbolTable.getId("MSFT"));
+        assertEquals(-1, symbolTable.getId(null));
+    }
+
+    @Test
+    void bounded() {
+        SymbolTable symbolTable = new SymbolTable(1);
+        String aapl = symbolTable.intern("AAPL");
+        String msft = symbolTable.intern("MSFT");
+        assertEquals("MSFT", msft);
+        assertNotSame(msft, symbolTable.intern(new String("MSFT")));
+        assertSame(aapl, symbolTable.intern(new String("AAPL")));
+        assertEquals(1, symbolTable.size());
+
+        symbolTable.clear();
+        assertEquals(0, symbolTable.size());
+        assertEquals(-1, symbolTable.getId("AAPL"));
+        msft = symbolTable.intern("MSFT");
+        assertSame(msft, symbolTable.intern(new String("MSFT")));
+        assertEquals(0, symbolTable.getId("MSFT"));
+    }
+
+    @Test
+    void concurrentIntern() throws Exception {
+        SymbolTable symbolTable = new SymbolTable();
+        int threadCount = 4;
+        int symbolCount = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                futures.add(executor.submit(() -> {
+                    String[] interned = new String[symbolCount];
+                    for (int i = 0; i < symbolCount; i++) {
+                        interned[i] = symbolTable.intern("S" + i);
+                    }
+                    return interned;
+                }));
+            }
+            String[] expected = futures.get(0).get();
+            for (Future<String[]> future : futures) {
+                String[] interned = future.get();
+                for (int i = 0; i < symbolCount; i++) {
+                    assertSame(expected[i], interned[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(symbolCount, symbolTable.size());
+        for (int i = 0; i < symbolCount; i++) {
+            assertEquals("S" + i, symbolTable.getValue(symbolTable.getId("S" + i)));
+        }
+    }
+
+    @Test
+    void parsersShareInstances() {
+        SymbolTable symbolTable = new SymbolTable();
+        AccountStatementTransactionLineParser transactionLineParser = new AccountStatementTransactionLineParser(true, false, symbolTable);
+        AccountStatementHoldingLineParser holdingLineParser = new AccountStatementHoldingLineParser(symbolTable);
+        String symbol1 = transactionLineParser.parseTradingAccountTransactionLine(
+                "03 Jan 2023 15:00:01 GMT AAPL Trade - Market 10 $150.00 Buy $1,500.00 $0.01 $0").getSymbol();
+        String symbol2 = transactionLineParser.parseTradingAccountTransactionLineByRegex(
+                "15 Jan 2023 10:00:00 GMT AAPL Dividend $2.30 $0 $0").getSymbol();
+        String symbol3 = holdingLineParser.parseTradingAccountStatementHoldingLine(
+                "AAPL Apple Inc. US0378331005 10 $150.00 $1,500.00 10.5%").getSymbol();
+        assertEquals("AAPL", symbol1);
+        assertSame(symbol1, symbol2);
+        assertSame(symbol1, symbol3);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2023 Brinvex (dev@brinvex.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.brinvex.util.revolut.impl.pdfreader;
+
+import com.brinvex.util.revolut.api.service.RevolutService;
+import com.brinvex.util.revolut.impl.RevolutServiceImpl;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfReaderTest {
+
+    private final PdfReader pdfReader = new PdfReader();
+
+    @Test
+    void streamPdfLines_equalsWholeDocumentSplit() throws IOException {
+        byte[] pdf = createPdf(List.of(
+                List.of("Account Statement", "", "Period 01 Jan 2023 - 31 Jan 2023"),
+                List.of("USD Transactions", "Date Symbol Type Quantity Price Side Value Fees Commission"),
+                List.of(),
+                List.of("Total", "", "")
+        ));
+
+        List<String> expectedLines;
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            expectedLines = Arrays.asList(new PDFTextStripper().getText(document).split("\\r?\\n"));
+        }
+
+        List<String> streamedLines;
+        try (Stream<String> lines = pdfReader.streamPdfLines(new ByteArrayInputStream(pdf))) {
+            streamedLines = lines.collect(Collectors.toList());
+        }
+        assertEquals(expectedLines, streamedLines);
+        assertEquals(expectedLines, pdfReader.readPdfLines(new ByteArrayInputStream(pdf)));
+
+        //Views of the text of their page instead of a String per line
+        try (Stream<? extends CharSequence> lines = pdfReader.streamPdfLineViews(new ByteArrayInputStream(pdf))) {
+            List<CharSequence> lineViews = lines.collect(Collectors.toList());
+            assertEquals(expectedLines, lineViews.stream().map(CharSequence::toString).toList());
+            assertFalse(lineViews.get(0) instanceof String);
+        }
+        //A page is split into its terminated lines, empty ones included, the rest continues on the next page
+        assertEquals(List.of("a", "", "b\r"), toStrings(PdfText.ofTerminatedLines("a\r\n\nb\r\r\nc")));
+        assertEquals(List.of(), toStrings(PdfText.ofTerminatedLines("c")));
+    }
+
+    @Test
+    void readPdfText_sameLinesAsReadPdfLines() throws IOException {
+        byte[] pdf = createPdf(List.of(
+                List.of("Account Statement", "", "Period 01 Jan 2023 - 31 Jan 2023"),
+                List.of(),
+                List.of("Total", "", "")
+        ));
+        List<String> expectedLines = pdfReader.readPdfLines(new ByteArrayInputStream(pdf));
+        assertEquals(expectedLines, toStrings(pdfReader.readPdfText(new ByteArrayInputStream(pdf))));
+
+        CachingPdfReader cachingPdfReader = new CachingPdfReader(1_000);
+        assertEquals(expectedLines, toStrings(cachingPdfReader.readPdfText(new ByteArrayInputStream(pdf))));
+        assertEquals(expectedLines, cachingPdfReader.readPdfLines(new ByteArrayInputStream(pdf)));
+        //A hit is streamed as views of the cached text
+        try (Stream<? extends CharSequence> lines = cachingPdfReader.streamPdfLineViews(new ByteArrayInputStream(pdf))) {
+            List<CharSequence> lineViews = lines.collect(Collectors.toList());
+            assertEquals(expectedLines, lineViews.stream().map(CharSequence::toString).toList());
+            assertFalse(lineViews.get(0) instanceof String);
+        }
+
+        for (String text : List.of("", "\n", "a", "a\r", "\r\n\na\r\rb\n \n\n", "a\r\nb\n\r\n")) {
+            assertEquals(Arrays.asList(text.split("\\r?\\n")), toStrings(PdfText.of(text)), text);
+        }
+
+        CharSequence line = PdfText.of("x\n  Total  \n").getLine(1);
+        assertEquals("Total", line.subSequence(2, 7).toString());
+        assertEquals("ta", line.subSequence(2, 7).subSequence(2, 4).toString());
+    }
+
+    @Test
+    void streamPdfLines_partialConsumption() throws IOException {
+        byte[] pdf = createPdf(List.of(List.of("First page"), List.of("Second page")));
+        try (Stream<String> lines = pdfReader.streamPdfLines(new ByteArrayInputStream(pdf))) {
+            assertEquals(List.of("First page"), lines.limit(1).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void cachingPdfReader_diskTier(@TempDir Path cacheDir) throws IOException {
+        byte[] pdf = createPdf(List.of(List.of("First page"), List.of("Second page")));
+        List<String> expectedLines = pdfReader.readPdfLines(new ByteArrayInputStream(pdf));
+
+        CachingPdfReader cachingPdfReader1 = new CachingPdfReader(1_000, cacheDir, 1_000_000);
+        assertEquals(expectedLines, cachingPdfReader1.readPdfLines(new ByteArrayInputStream(pdf)));
+        assertEquals(expectedLines, cachingPdfReader1.readPdfLines(new ByteArrayInputStream(pdf)));
+        try (Stream<Path> cacheFiles = Files.list(cacheDir)) {
+            assertEquals(1, cacheFiles.count());
+        }
+
+        CachingPdfReader cachingPdfReader2 = new CachingPdfReader(1_000, cacheDir, 1_000_000);
+        try (Stream<String> lines = cachingPdfReader2.streamPdfLines(new ByteArrayInputStream(pdf))) {
+            assertEquals(expectedLines, lines.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void cachingPdfReader_corruptDiskEntryIsMiss(@TempDir Path cacheDir) throws IOException {
+        byte[] pdf = createPdf(List.of(List.of("First page")));
+        List<String> expectedLines = pdfReader.readPdfLines(new ByteArrayInputStream(pdf));
+        new CachingPdfReader(1_000, cacheDir, 1_000_000).readPdfLines(new ByteArrayInputStream(pdf));
+        Path entryPath;
+        try (Stream<Path> cacheFiles = Files.list(cacheDir)) {
+            entryPath = cacheFiles.findFirst().orElseThrow();
+        }
+        byte[] entryBytes = Files.readAllBytes(entryPath);
+        Files.write(entryPath, Arrays.copyOf(entryBytes, entryBytes.length / 2));
+
+        CachingPdfReader cachingPdfReader = new CachingPdfReader(1_000, cacheDir, 1_000_000);
+        assertEquals(expectedLines, cachingPdfReader.readPdfLines(new ByteArrayInputStream(pdf)));
+        assertEquals(expectedLines, new CachingPdfReader(1_000, cacheDir, 1_000_000).readPdfLines(new ByteArrayInputStream(pdf)));
+    }
+
+    @Test
+    void pdfLinesCodec_corruptLengthIsMiss() throws IOException {
+        assertEquals(List.of("a", "", "b"), PdfLinesCodec.decode(PdfLinesCodec.encode(List.of("a", "", "b"))));
+
+        //Header of a valid entry followed by a line count and a line length of Integer.MAX_VALUE
+        byte[] header = Arrays.copyOf(PdfLinesCodec.encode(List.of()), 5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(header);
+        try (DeflaterOutputStream deflatedOut = new DeflaterOutputStream(bytes)) {
+            byte[] maxVarInt = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+            deflatedOut.write(maxVarInt);
+            deflatedOut.write(maxVarInt);
+            deflatedOut.write('a');
+        }
+        assertNull(PdfLinesCodec.decode(bytes.toByteArray()));
+    }
+
+    @Test
+    void cachingPdfReader_cachesStatementsStreamedByService(@TempDir Path cacheDir) throws IOException {
+        byte[] pdf = createPdf(List.of(List.of(
+                "Revolut Securities Europe UAB",
+                "Account Statement",
+                "Account name JOHN DOE",
+                "Account number RE12345678",
+                "Period 01 Jan 2023 - 31 Jan 2023",
+                "USD Account summary",
+                "Starting Ending",
+                "Stocks value $0 $1,500.00",
+                "Cash value * $0 $1,000.00",
+                "Total $0 $2,500.00",
+                "Portfolio breakdown",
+                "Symbol Company ISIN Quantity Price Value % of Portfolio",
+                "AAPL Apple Inc. US0378331005 10 $150.00 $1,500.00 60.00%",
+                "Stocks value $1,500.00 60.00%",
+                "Cash value $1,000.00 40.00%",
+                "USD Transactions",
+                "Date Symbol Type Quantity Price Side Value Fees Commission",
+                "02 Jan 2023 14:30:00 GMT Cash top-up $2,500.00 $0 $0",
+                "03 Jan 2023 15:00:01 GMT AAPL Trade - Market 10 $150.00 Buy $1,500.00 $0 $0",
+                "This statement is provided by Revolut Securities Europe UAB"
+        ), List.of("Report lost or stolen card")));
+
+        //The service stops reading the lines after the statement footer, yet the whole document is cached
+        RevolutService service = new RevolutServiceImpl(new CachingPdfReader(1_000_000, cacheDir, 10_000_000));
+        assertEquals("JOHN DOE", service.processStatements(Stream.of(() -> new ByteArrayInputStream(pdf))).getAccountName());
+        try (Stream<Path> files = Files.list(cacheDir)) { System.out.println("DBG after process " + files.count()); }
+        assertFalse(service.getPortfolioValues(Stream.of(() -> new ByteArrayInputStream(pdf))).isEmpty());
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            entries = files.toList();
+        }
+        assertEquals(1, entries.size());
+
+        //The next run reads the statement from the on-disk tier, tampered with to tell a hit from an extraction
+        List<String> cachedLines = PdfLinesCodec.decode(Files.readAllBytes(entries.get(0)));
+        assertEquals(pdfReader.readPdfLines(new ByteArrayInputStream(pdf)), cachedLines);
+        Files.write(entries.get(0), PdfLinesCodec.encode(cachedLines.stream()
+                .map(line -> line.replace("JOHN DOE", "JANE DOE"))
+                .toList()));
+        service = new RevolutServiceImpl(new CachingPdfReader(1_000_000, cacheDir, 10_000_000));
+        assertEquals("JANE DOE", service.processStatements(Stream.of(() -> new ByteArrayInputStream(pdf))).getAccountName());
+    }
+
+    @Test
+    void pipelinedPdfReader() throws IOException, InterruptedException {
+        List<List<String>> pages = IntStream.range(0, 6)
+                .mapToObj(page -> IntStream.range(0, 24).mapToObj(line -> "Page " + page + " line " + line).toList())
+                .toList();
+        byte[] pdf = createPdf(pages);
+        List<String> expectedLines = pdfReader.readPdfLines(new ByteArrayInputStream(pdf));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PipelinedPdfReader pipelinedPdfReader = new PipelinedPdfReader(pdfReader, executor, 1);
+            assertEquals(expectedLines, pipelinedPdfReader.readPdfLines(new ByteArrayInputStream(pdf)));
+
+            //Closing a partially consumed stream releases the extracting thread blocked on the full queue
+            try (Stream<String> lines = pipelinedPdfReader.streamPdfLines(new ByteArrayInputStream(pdf))) {
+                assertEquals(expectedLines.subList(0, 3), lines.limit(3).collect(Collectors.toList()));
+            }
+            assertEquals(expectedLines, pipelinedPdfReader.readPdfLines(new ByteArrayInputStream(pdf)));
+
+            PipelinedPdfReader pipelinedCachingPdfReader = new PipelinedPdfReader(new CachingPdfReader(100_000), executor, 1);
+            for (int i = 0; i < 2; i++) {
+                try (Stream<? extends CharSequence> lines = pipelinedCachingPdfReader.streamPdfLineViews(new ByteArrayInputStream(pdf))) {
+                    assertEquals(expectedLines, lines.map(CharSequence::toString).toList());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private static List<String> toStrings(PdfText text) {
+        return text.getLines().stream().map(CharSequence::toString).toList();
+    }
+
+    static byte[] createPdf(List<List<String>> pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (List<String> pageLines : pages) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(50, 750);
+                    for (String line : pageLines) {
+                        content.showText(line);
+                        content.newLineAtOffset(0, -30);
+                    }
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}